@@ -1,13 +1,23 @@
 package barbershop.block_time_service;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class })
+@EnableScheduling
 public class BlockTimeServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(BlockTimeServiceApplication.class, args);
 	}
+
+	@Bean
+	NewTopic blockTimeChanged() {
+		// Các instance load lại lịch block của ngày bị sửa
+		return new NewTopic("block-time-changed", 1, (short) 1);
+	}
 }
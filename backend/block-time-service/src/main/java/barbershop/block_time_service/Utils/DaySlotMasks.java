@@ -0,0 +1,132 @@
+package barbershop.block_time_service.Utils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Map ngày (yyyyMMdd) -> mask 25 bit các slot bị block, open addressing trên mảng int để tránh boxing.
+// Không thread-safe: BlockTimeCalendarService sửa trên bản copy rồi publish nguyên object (copy-on-write).
+public class DaySlotMasks {
+    public static final int SLOT_COUNT = 25;
+    public static final int ALL_SLOTS = (1 << SLOT_COUNT) - 1;
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private int[] masks;
+    private int size;
+
+    public DaySlotMasks(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.masks = new int[capacity];
+    }
+
+    public int get(int day) {
+        int slot = slot(keys, day);
+        return keys[slot] == day ? masks[slot] : 0;
+    }
+
+    // mask = 0 vẫn giữ key (ít khi xảy ra), copy() sẽ bỏ các entry rỗng
+    public void put(int day, int mask) {
+        int slot = slot(keys, day);
+        if (keys[slot] != day) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+                slot = slot(keys, day);
+            }
+            keys[slot] = day;
+            size++;
+        }
+        masks[slot] = mask;
+    }
+
+    public DaySlotMasks copy() {
+        DaySlotMasks copy = new DaySlotMasks(size + 1);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && masks[i] != 0) {
+                copy.put(keys[i], masks[i]);
+            }
+        }
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldMasks = masks;
+        keys = new int[capacity];
+        masks = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                masks[slot] = oldMasks[i];
+            }
+        }
+    }
+
+    private static int slot(int[] keys, int day) {
+        int mask = keys.length - 1;
+        int h = day * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != day) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // "yyyy-MM-dd" -> yyyyMMdd, -1 nếu sai định dạng
+    public static int toDayKey(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return -1;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year <= 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    public static int toDayKey(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    public static int toSlotIndex(LocalTime time) {
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            return -1;
+        }
+        return toSlotIndex(time.getHour(), time.getMinute());
+    }
+
+    // "HH:mm" -> vị trí slot (08:00 = 0 ... 20:00 = 24) giống Utils.generateTimeSlots, -1 nếu không phải slot
+    public static int toSlotIndex(String time) {
+        if (time == null || time.length() != 5 || time.charAt(2) != ':') {
+            return -1;
+        }
+        return toSlotIndex(digits(time, 0, 2), digits(time, 3, 5));
+    }
+
+    private static int toSlotIndex(int hour, int minute) {
+        if (hour < 8 || hour > 20 || (minute != 0 && minute != 30) || (hour == 20 && minute == 30)) {
+            return -1;
+        }
+        return (hour - 8) * 2 + (minute == 30 ? 1 : 0);
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
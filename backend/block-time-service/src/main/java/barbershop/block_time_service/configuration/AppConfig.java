@@ -1,9 +1,12 @@
 package barbershop.block_time_service.configuration;
 
+import barbershop.common.security.TokenVerifier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.converter.JsonMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -28,4 +31,17 @@ public class AppConfig implements WebMvcConfigurer {
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
+
+    @Bean
+    public JsonMessageConverter converter() {
+        return new JsonMessageConverter();
+    }
+
+    // Xác thực token tại chỗ, cùng secret với user-service
+    @Bean
+    public TokenVerifier tokenVerifier(
+            @Value("${jwt.token.secretKey}") String secret,
+            @Value("${jwt.expire}") long expire) {
+        return new TokenVerifier(secret, expire);
+    }
 }
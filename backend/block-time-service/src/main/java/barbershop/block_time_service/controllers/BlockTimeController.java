@@ -1,9 +1,13 @@
 package barbershop.block_time_service.controllers;
 
+import barbershop.block_time_service.dtos.request.BulkDeleteBlockTimeRequest;
+import barbershop.block_time_service.dtos.request.BulkSaveBlockTimeRequest;
 import barbershop.block_time_service.dtos.request.SaveBlockTimeRequest;
+import barbershop.block_time_service.dtos.request.SaveBlockTimeRuleRequest;
 import barbershop.block_time_service.dtos.request.GetAllBlockTimesRequest;
 import barbershop.block_time_service.dtos.response.BaseResponse;
 import barbershop.block_time_service.dtos.response.PaginationResponse;
+import barbershop.block_time_service.services.BlockTimeRuleService;
 import barbershop.block_time_service.services.BlockTimeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,6 +20,9 @@ public class BlockTimeController {
     @Autowired
     private BlockTimeService blockTimeService;
 
+    @Autowired
+    private BlockTimeRuleService blockTimeRuleService;
+
     @GetMapping("/admin")
     public ResponseEntity<PaginationResponse> getAllBlockTimes(GetAllBlockTimesRequest getAllBlockTimesRequest) throws Exception {
         return new ResponseEntity<>(blockTimeService.getAllBlockTimes(getAllBlockTimesRequest), HttpStatus.OK);
@@ -26,6 +33,17 @@ public class BlockTimeController {
         return new ResponseEntity<>(blockTimeService.createNewBlockTime(saveBlockTimeRequest), HttpStatus.OK);
     }
 
+    @PostMapping("/admin/bulk")
+    public ResponseEntity<BaseResponse> createNewBlockTimes(@RequestBody BulkSaveBlockTimeRequest bulkSaveBlockTimeRequest) throws Exception {
+        return new ResponseEntity<>(blockTimeService.createNewBlockTimes(bulkSaveBlockTimeRequest), HttpStatus.OK);
+    }
+
+    // startDate, endDate, times (08:00,08:30,...) qua query string
+    @DeleteMapping("/admin/bulk")
+    public ResponseEntity<BaseResponse> deleteBlockTimes(BulkDeleteBlockTimeRequest bulkDeleteBlockTimeRequest) throws Exception {
+        return new ResponseEntity<>(blockTimeService.deleteBlockTimes(bulkDeleteBlockTimeRequest), HttpStatus.OK);
+    }
+
     @GetMapping("/admin/{id}")
     public ResponseEntity<BaseResponse> getBlockTimeById(@PathVariable String id) throws Exception {
         return new ResponseEntity<>(blockTimeService.getBlockTimeById(id), HttpStatus.OK);
@@ -42,4 +60,19 @@ public class BlockTimeController {
     public ResponseEntity<BaseResponse> deleteBlockTime(@PathVariable(value="id") String id) throws Exception {
         return new ResponseEntity<>(blockTimeService.deleteBlockTime(id), HttpStatus.OK);
     }
+
+    @GetMapping("/admin/rules")
+    public ResponseEntity<BaseResponse> getAllBlockTimeRules() throws Exception {
+        return new ResponseEntity<>(blockTimeRuleService.getAllBlockTimeRules(), HttpStatus.OK);
+    }
+
+    @PostMapping("/admin/rules")
+    public ResponseEntity<BaseResponse> createNewBlockTimeRule(@RequestBody SaveBlockTimeRuleRequest saveBlockTimeRuleRequest) throws Exception {
+        return new ResponseEntity<>(blockTimeRuleService.createNewBlockTimeRule(saveBlockTimeRuleRequest), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/admin/rules/{id}")
+    public ResponseEntity<BaseResponse> deleteBlockTimeRule(@PathVariable(value="id") String id) throws Exception {
+        return new ResponseEntity<>(blockTimeRuleService.deleteBlockTimeRule(id), HttpStatus.OK);
+    }
 }
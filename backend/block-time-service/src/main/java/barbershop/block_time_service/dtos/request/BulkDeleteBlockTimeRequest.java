@@ -0,0 +1,18 @@
+package barbershop.block_time_service.dtos.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BulkDeleteBlockTimeRequest {
+    // yyyy-MM-dd
+    String startDate;
+    String endDate;
+    // HH:mm, rỗng: mọi slot trong ngày
+    List<String> times;
+}
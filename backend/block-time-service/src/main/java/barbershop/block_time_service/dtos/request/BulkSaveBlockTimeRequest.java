@@ -0,0 +1,20 @@
+package barbershop.block_time_service.dtos.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BulkSaveBlockTimeRequest {
+    // Danh sách slot cụ thể; nếu rỗng thì dùng startDate..endDate x times
+    List<SaveBlockTimeRequest> blockTimes;
+    // yyyy-MM-dd
+    String startDate;
+    String endDate;
+    // HH:mm, rỗng: mọi slot trong ngày
+    List<String> times;
+}
@@ -0,0 +1,23 @@
+package barbershop.block_time_service.dtos.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class SaveBlockTimeRuleRequest {
+    // DAILY | WEEKLY
+    String type;
+    // WEEKLY: 1 = thứ Hai ... 7 = Chủ nhật
+    List<Integer> daysOfWeek;
+    // yyyy-MM-dd, endDate bỏ trống nếu không có ngày kết thúc
+    String startDate;
+    String endDate;
+    // HH:mm, khoảng slot bị block tính cả hai đầu
+    String startTime;
+    String endTime;
+}
@@ -5,7 +5,8 @@ import lombok.*;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
 
 @Getter
 @Setter
@@ -15,9 +16,9 @@ import java.util.Date;
 @Entity
 @Table(name = "block_times")
 public class BlockTime extends BaseEntity {
-    @Column(name="date", length=255, nullable=false)
-    private String date;
+    @Column(name="date", nullable=false)
+    private LocalDate date;
 
-    @Column(name="time", length=255, nullable=false)
-    private String time;
+    @Column(name="time", nullable=false)
+    private LocalTime time;
 }
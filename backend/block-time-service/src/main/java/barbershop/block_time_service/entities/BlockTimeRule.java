@@ -0,0 +1,46 @@
+package barbershop.block_time_service.entities;
+
+import barbershop.block_time_service.enums.RecurrenceType;
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "block_time_rules")
+public class BlockTimeRule extends BaseEntity {
+    @Enumerated(EnumType.STRING)
+    @Column(name="type", length=16, nullable=false)
+    private RecurrenceType type;
+
+    // WEEKLY: bit (d - 1) = thứ d theo ISO (1 = thứ Hai ... 7 = Chủ nhật)
+    @Column(name="days_of_week", nullable=false)
+    private int daysOfWeek;
+
+    @Column(name="start_date", nullable=false)
+    private LocalDate startDate;
+
+    // null: không có ngày kết thúc
+    @Column(name="end_date")
+    private LocalDate endDate;
+
+    // bit i = slot thứ i tính từ 08:00
+    @Column(name="slot_mask", nullable=false)
+    private int slotMask;
+
+    public boolean appliesTo(LocalDate date) {
+        if (date.isBefore(startDate) || (endDate != null && date.isAfter(endDate))) {
+            return false;
+        }
+        return type == RecurrenceType.DAILY || (daysOfWeek & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+}
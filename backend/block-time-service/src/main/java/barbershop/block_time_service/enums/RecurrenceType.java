@@ -0,0 +1,6 @@
+package barbershop.block_time_service.enums;
+
+public enum RecurrenceType {
+    DAILY,
+    WEEKLY
+}
@@ -3,9 +3,16 @@ package barbershop.block_time_service.repositories;
 import barbershop.block_time_service.dtos.request.GetAllBlockTimesRequest;
 import barbershop.block_time_service.entities.BlockTime;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 public interface BlockTimeRepositoryCustom {
     List<BlockTime> getAllBlockTime(GetAllBlockTimesRequest getAllBlockTimesRequest);
     int countAllBlockTime(GetAllBlockTimesRequest getAllBlockTimesRequest);
+    // Insert nhiều dòng trong một statement, slot đã tồn tại thì bỏ qua; trả về số dòng được thêm
+    int insertBlockTimesIgnoreExisting(List<LocalDateTime> slots);
+    // times rỗng: xoá mọi slot trong range
+    int deleteBlockTimesInRange(LocalDate startDate, LocalDate endDate, List<LocalTime> times);
 }
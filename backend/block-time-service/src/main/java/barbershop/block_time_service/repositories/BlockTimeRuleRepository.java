@@ -0,0 +1,9 @@
+package barbershop.block_time_service.repositories;
+
+import barbershop.block_time_service.entities.BlockTimeRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BlockTimeRuleRepository extends JpaRepository<BlockTimeRule, Integer> {
+}
@@ -9,10 +9,20 @@ import org.springframework.stereotype.Component;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class BlockTimeRepositoryCustomImpl implements BlockTimeRepositoryCustom {
+    // Cùng pattern với validate range trong service
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -21,18 +31,14 @@ public class BlockTimeRepositoryCustomImpl implements BlockTimeRepositoryCustom
         String sql = "select * from block_times\n";
 
         if (getAllBlockTimesRequest.getRange() != null && !getAllBlockTimesRequest.getRange().isEmpty()) {
-            sql += "where date(:startDate) <= date(block_times.date) and date(block_times.date) <= date(:endDate)\n";
+            // So sánh trực tiếp cột DATE để dùng được index uk_block_times_date_time
+            sql += "where block_times.date between :startDate and :endDate\n";
         }
 
-        sql += "order by date(block_times.date) ";
-
-        if (getAllBlockTimesRequest.getSortBy() != null) {
-            sql += getAllBlockTimesRequest.getSortBy();
-        } else {
-            sql += "desc";
-        }
+        String direction = getAllBlockTimesRequest.getSortBy() != null ? getAllBlockTimesRequest.getSortBy() : "desc";
+        sql += "order by block_times.date " + direction + ", block_times.time " + direction + "\n";
 
-        sql += "\nlimit :offset, :limit";
+        sql += "limit :offset, :limit";
 
         int page = Integer.parseInt(getAllBlockTimesRequest.getPage());
         int items = Integer.parseInt(getAllBlockTimesRequest.getItems());
@@ -40,10 +46,10 @@ public class BlockTimeRepositoryCustomImpl implements BlockTimeRepositoryCustom
         Query query = entityManager.createNativeQuery(sql, BlockTime.class);
 
         if (getAllBlockTimesRequest.getRange() != null && !getAllBlockTimesRequest.getRange().isEmpty()) {
-            String startDate = getAllBlockTimesRequest.getRange().split(",")[0].trim();
-            String endDate = getAllBlockTimesRequest.getRange().split(",")[1].trim();
-            query.setParameter("startDate", startDate);
-            query.setParameter("endDate", endDate);
+            LocalDate startDate = LocalDate.parse(getAllBlockTimesRequest.getRange().split(",")[0].trim(), DATE_FORMATTER);
+            LocalDate endDate = LocalDate.parse(getAllBlockTimesRequest.getRange().split(",")[1].trim(), DATE_FORMATTER);
+            query.setParameter("startDate", Date.valueOf(startDate));
+            query.setParameter("endDate", Date.valueOf(endDate));
         }
         query.setParameter("offset", (page - 1) * items);
         query.setParameter("limit", items);
@@ -56,18 +62,62 @@ public class BlockTimeRepositoryCustomImpl implements BlockTimeRepositoryCustom
         String sql = "select count(*) from block_times\n";
 
         if (getAllBlockTimesRequest.getRange() != null && !getAllBlockTimesRequest.getRange().isEmpty()) {
-            sql += "where date(:startDate) <= date(block_times.date) and date(block_times.date) <= date(:endDate)\n";
+            // So sánh trực tiếp cột DATE để dùng được index uk_block_times_date_time
+            sql += "where block_times.date between :startDate and :endDate\n";
         }
 
         Query query = entityManager.createNativeQuery(sql);
 
         if (getAllBlockTimesRequest.getRange() != null && !getAllBlockTimesRequest.getRange().isEmpty()) {
-            String startDate = getAllBlockTimesRequest.getRange().split(",")[0].trim();
-            String endDate = getAllBlockTimesRequest.getRange().split(",")[1].trim();
-            query.setParameter("startDate", startDate);
-            query.setParameter("endDate", endDate);
+            LocalDate startDate = LocalDate.parse(getAllBlockTimesRequest.getRange().split(",")[0].trim(), DATE_FORMATTER);
+            LocalDate endDate = LocalDate.parse(getAllBlockTimesRequest.getRange().split(",")[1].trim(), DATE_FORMATTER);
+            query.setParameter("startDate", Date.valueOf(startDate));
+            query.setParameter("endDate", Date.valueOf(endDate));
         }
 
         return Integer.parseInt(query.getResultList().get(0).toString());
     }
+
+    @Override
+    public int insertBlockTimesIgnoreExisting(List<LocalDateTime> slots) {
+        if (slots.isEmpty()) {
+            return 0;
+        }
+        // Dòng trùng uk_block_times_date_time bị bỏ qua và không được đếm (on duplicate key update thì Connector/J đếm cả dòng trùng).
+        // Ignore cũng hạ các lỗi dữ liệu khác thành warning, date / time ở đây luôn khác null và đúng kiểu nên không gặp.
+        StringBuilder sql = new StringBuilder("insert ignore into block_times (created_at, updated_at, date, time) values ");
+        for (int i = 0; i < slots.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(current_timestamp(6), current_timestamp(6), :date").append(i).append(", :time").append(i).append(")");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < slots.size(); i++) {
+            query.setParameter("date" + i, Date.valueOf(slots.get(i).toLocalDate()));
+            query.setParameter("time" + i, Time.valueOf(slots.get(i).toLocalTime()));
+        }
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int deleteBlockTimesInRange(LocalDate startDate, LocalDate endDate, List<LocalTime> times) {
+        String sql = "delete from block_times where block_times.date between :startDate and :endDate";
+        if (!times.isEmpty()) {
+            sql += " and block_times.time in (:times)";
+        }
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter("startDate", Date.valueOf(startDate));
+        query.setParameter("endDate", Date.valueOf(endDate));
+        if (!times.isEmpty()) {
+            List<Time> sqlTimes = new ArrayList<>();
+            for (LocalTime time : times) {
+                sqlTimes.add(Time.valueOf(time));
+            }
+            query.setParameter("times", sqlTimes);
+        }
+        return query.executeUpdate();
+    }
 }
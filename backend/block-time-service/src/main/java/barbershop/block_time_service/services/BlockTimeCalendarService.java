@@ -0,0 +1,34 @@
+package barbershop.block_time_service.services;
+
+import barbershop.block_time_service.entities.BlockTimeRule;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BlockTimeCalendarService {
+    /**
+     * Slot (date "yyyy-MM-dd", time "HH:mm") có bị block không, đọc từ mask trong bộ nhớ, không truy cập DB.
+     */
+    boolean isBlocked(String date, String time);
+
+    /**
+     * Mask 25 bit các slot bị block của ngày (bit i = slot thứ i từ 08:00), gồm block lẻ và block lặp lại.
+     * 0 nếu ngày sai định dạng.
+     */
+    int getSlotMask(String date);
+
+    /**
+     * Gọi trong transaction đã sửa block_times của ngày: sau commit load lại mask ngày đó và báo các instance khác.
+     */
+    void markChanged(LocalDate date);
+
+    /**
+     * Các block lặp lại đang áp dụng (snapshot, không sửa).
+     */
+    List<BlockTimeRule> getRules();
+
+    /**
+     * Gọi trong transaction đã sửa block_time_rules: sau commit load lại rule và báo các instance khác.
+     */
+    void markRulesChanged();
+}
@@ -1,35 +1,73 @@
 package barbershop.block_time_service.services;
 
-import barbershop.block_time_service.entities.BlockTime;
-import barbershop.block_time_service.repositories.BlockTimeRepository;
 import block_time.BlockTimeServiceGrpc;
 import block_time.CheckBlockTimeRequest;
 import block_time.CheckBlockTimeResponse;
+import block_time.GetBlockedSlotsRequest;
+import block_time.GetBlockedSlotsResponse;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
 @Slf4j
 @GrpcService
 public class BlockTimeGrpcService extends BlockTimeServiceGrpc.BlockTimeServiceImplBase {
+    // Cửa sổ đặt lịch [0; 6] ngày
+    private static final int MAX_BLOCKED_SLOTS_DAYS = 7;
+
     @Autowired
-    private BlockTimeRepository blockTimeRepository;
+    private BlockTimeCalendarService blockTimeCalendarService;
+
     @Override
     public void checkBlockTime(CheckBlockTimeRequest request,
                                StreamObserver<CheckBlockTimeResponse> responseObserver) {
         try {
-            BlockTime blockTime = blockTimeRepository.findByDateAndTime(request.getDate(), request.getTime()).orElse(null);
-            if (blockTime == null) {
-                responseObserver.onNext(CheckBlockTimeResponse.newBuilder().setIsBlocked(false).build());
-                responseObserver.onCompleted();
-                return;
-            }
-            responseObserver.onNext(CheckBlockTimeResponse.newBuilder().setIsBlocked(true).build());
+            // Bit test trên lịch trong bộ nhớ, không truy cập DB
+            boolean isBlocked = blockTimeCalendarService.isBlocked(request.getDate(), request.getTime());
+            responseObserver.onNext(CheckBlockTimeResponse.newBuilder().setIsBlocked(isBlocked).build());
             responseObserver.onCompleted();
         } catch (Exception exception) {
             log.error("ERROR", exception);
             responseObserver.onError(io.grpc.Status.INTERNAL.withDescription(exception.getMessage()).asException());
         }
     }
+
+    @Override
+    public void getBlockedSlots(GetBlockedSlotsRequest request,
+                                StreamObserver<GetBlockedSlotsResponse> responseObserver) {
+        LocalDate startDate;
+        LocalDate endDate;
+        try {
+            startDate = LocalDate.parse(request.getStartDate());
+            endDate = LocalDate.parse(request.getEndDate());
+        } catch (DateTimeParseException exception) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Invalid start date or end date").asException());
+            return;
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days < 1 || days > MAX_BLOCKED_SLOTS_DAYS) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Range must be from 1 to " + MAX_BLOCKED_SLOTS_DAYS + " days").asException());
+            return;
+        }
+
+        try {
+            GetBlockedSlotsResponse.Builder responseBuilder = GetBlockedSlotsResponse.newBuilder()
+                    .setStartDate(startDate.toString());
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                responseBuilder.addSlotMasks(blockTimeCalendarService.getSlotMask(date.toString()));
+            }
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+        } catch (Exception exception) {
+            log.error("ERROR", exception);
+            responseObserver.onError(Status.INTERNAL.withDescription(exception.getMessage()).asException());
+        }
+    }
 }
@@ -0,0 +1,10 @@
+package barbershop.block_time_service.services;
+
+import barbershop.block_time_service.dtos.request.SaveBlockTimeRuleRequest;
+import barbershop.block_time_service.dtos.response.BaseResponse;
+
+public interface BlockTimeRuleService {
+    BaseResponse getAllBlockTimeRules() throws Exception;
+    BaseResponse createNewBlockTimeRule(SaveBlockTimeRuleRequest saveBlockTimeRuleRequest) throws Exception;
+    BaseResponse deleteBlockTimeRule(String id) throws Exception;
+}
@@ -1,5 +1,7 @@
 package barbershop.block_time_service.services;
 
+import barbershop.block_time_service.dtos.request.BulkDeleteBlockTimeRequest;
+import barbershop.block_time_service.dtos.request.BulkSaveBlockTimeRequest;
 import barbershop.block_time_service.dtos.request.SaveBlockTimeRequest;
 import barbershop.block_time_service.dtos.request.GetAllBlockTimesRequest;
 import barbershop.block_time_service.dtos.response.BaseResponse;
@@ -11,4 +13,6 @@ public interface BlockTimeService {
     BaseResponse updateBlockTime(String id, SaveBlockTimeRequest saveBlockTimeRequest) throws Exception;
     BaseResponse deleteBlockTime(String id) throws Exception;
     BaseResponse getBlockTimeById(String id) throws Exception;
+    BaseResponse createNewBlockTimes(BulkSaveBlockTimeRequest bulkSaveBlockTimeRequest) throws Exception;
+    BaseResponse deleteBlockTimes(BulkDeleteBlockTimeRequest bulkDeleteBlockTimeRequest) throws Exception;
 }
@@ -0,0 +1,223 @@
+package barbershop.block_time_service.services.impl;
+
+import barbershop.block_time_service.Utils.DaySlotMasks;
+import barbershop.block_time_service.dtos.request.BlockTimeChangedEventRequest;
+import barbershop.block_time_service.entities.BlockTime;
+import barbershop.block_time_service.entities.BlockTimeRule;
+import barbershop.block_time_service.repositories.BlockTimeRepository;
+import barbershop.block_time_service.repositories.BlockTimeRuleRepository;
+import barbershop.block_time_service.services.BlockTimeCalendarService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lịch block theo ngày giữ trong bộ nhớ: danh sách block nhỏ, đọc (checkBlockTime) nhiều hơn ghi rất nhiều.
+ * Ghi theo kiểu copy-on-write, reader chỉ đọc field volatile nên không cần lock.
+ * Mỗi lần sửa, ngày bị ảnh hưởng được load lại từ DB sau commit và publish "block-time-changed"
+ * để các instance khác (mỗi instance một consumer group) cũng load lại.
+ * Block lặp lại (block_time_rules) chỉ được expand thành mask cho những ngày được hỏi tới và nhớ lại theo ngày,
+ * nên chi phí không tăng theo độ dài lịch. Đổi rule thì thay cả RuleSet (kèm phần đã expand).
+ * Event bị mất (gửi lỗi, instance đang restart consumer) chỉ làm lịch cũ tới lần load lại toàn bộ định kỳ tiếp theo.
+ */
+@Slf4j
+@Service
+public class BlockTimeCalendarServiceImpl implements BlockTimeCalendarService {
+    @Autowired
+    private BlockTimeRepository blockTimeRepository;
+
+    @Autowired
+    private BlockTimeRuleRepository blockTimeRuleRepository;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${block-time.rule-cache.maximum-size:1024}")
+    private long ruleCacheMaximumSize;
+
+    private volatile DaySlotMasks calendar = new DaySlotMasks(0);
+
+    private volatile RuleSet ruleSet = new RuleSet(Collections.emptyList(), 0);
+
+    private final Object writeLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        reloadCalendar();
+        reloadRules();
+    }
+
+    @Scheduled(
+            initialDelayString = "${block-time.calendar.full-reload-interval-ms:300000}",
+            fixedDelayString = "${block-time.calendar.full-reload-interval-ms:300000}"
+    )
+    public void fullReload() {
+        try {
+            reloadCalendar();
+            reloadRules();
+        } catch (Exception exception) {
+            log.error("Reload block-time calendar failed", exception);
+        }
+    }
+
+    @Override
+    public boolean isBlocked(String date, String time) {
+        int slot = DaySlotMasks.toSlotIndex(time);
+        return slot >= 0 && (getSlotMask(date) & (1 << slot)) != 0;
+    }
+
+    @Override
+    public int getSlotMask(String date) {
+        int day = DaySlotMasks.toDayKey(date);
+        return day < 0 ? 0 : calendar.get(day) | ruleSet.slotMask(day);
+    }
+
+    @Override
+    public List<BlockTimeRule> getRules() {
+        return ruleSet.rules;
+    }
+
+    @Override
+    public void markRulesChanged() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadRules();
+                // Không có date: cả lịch thay đổi
+                publish(Map.of());
+            }
+        });
+    }
+
+    @Override
+    public void markChanged(LocalDate date) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reloadDay(date);
+            publish(Map.of("date", date.toString()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadDay(date);
+                publish(Map.of("date", date.toString()));
+            }
+        });
+    }
+
+    private void publish(Map<String, String> event) {
+        kafkaTemplate.send("block-time-changed", event).addCallback(
+                result -> {},
+                exception -> log.error("Publish block-time-changed {} failed, other instances wait for the full reload", event, exception)
+        );
+    }
+
+    // Load lại cả bảng trong writeLock để không ghi đè mask mới hơn do reloadDay chạy song song
+    private void reloadCalendar() {
+        synchronized (writeLock) {
+            List<BlockTime> blockTimes = blockTimeRepository.findAll();
+            DaySlotMasks loaded = new DaySlotMasks(blockTimes.size());
+            for (BlockTime blockTime : blockTimes) {
+                int slot = DaySlotMasks.toSlotIndex(blockTime.getTime());
+                if (slot < 0) {
+                    log.warn("Skip block time not on the slot grid: {} {}", blockTime.getDate(), blockTime.getTime());
+                    continue;
+                }
+                int day = DaySlotMasks.toDayKey(blockTime.getDate());
+                loaded.put(day, loaded.get(day) | (1 << slot));
+            }
+            calendar = loaded;
+            log.info("Loaded block-time calendar: {} rows, {} days", blockTimes.size(), loaded.size());
+        }
+    }
+
+    private void reloadDay(LocalDate date) {
+        int day = DaySlotMasks.toDayKey(date);
+        synchronized (writeLock) {
+            int mask = 0;
+            for (BlockTime blockTime : blockTimeRepository.findAllByDate(date)) {
+                int slot = DaySlotMasks.toSlotIndex(blockTime.getTime());
+                if (slot >= 0) {
+                    mask |= 1 << slot;
+                }
+            }
+            DaySlotMasks next = calendar.copy();
+            next.put(day, mask);
+            calendar = next;
+        }
+    }
+
+    private void reloadRules() {
+        synchronized (writeLock) {
+            List<BlockTimeRule> rules = blockTimeRuleRepository.findAll();
+            ruleSet = new RuleSet(Collections.unmodifiableList(rules), ruleCacheMaximumSize);
+            log.info("Loaded {} block-time rules", rules.size());
+        }
+    }
+
+    @KafkaListener(
+            id = "handleBlockTimeChangedEvent",
+            groupId = "block-time-service-calendar-#{T(java.util.UUID).randomUUID()}",
+            idIsGroup = false,
+            topics = "block-time-changed"
+    )
+    public void handleBlockTimeChangedEvent(BlockTimeChangedEventRequest blockTimeChangedEventRequest) {
+        log.info("Reload block-time calendar for {}", blockTimeChangedEventRequest.getDate());
+        if (blockTimeChangedEventRequest.getDate() == null) {
+            reloadRules();
+            return;
+        }
+        reloadDay(LocalDate.parse(blockTimeChangedEventRequest.getDate()));
+    }
+
+    // Snapshot bất biến của các rule cùng mask đã expand theo ngày (yyyyMMdd)
+    private static class RuleSet {
+        private final List<BlockTimeRule> rules;
+        private final Cache<Integer, Integer> expandedMasks;
+
+        private RuleSet(List<BlockTimeRule> rules, long maximumSize) {
+            this.rules = rules;
+            this.expandedMasks = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .build();
+        }
+
+        private int slotMask(int day) {
+            if (rules.isEmpty()) {
+                return 0;
+            }
+            return expandedMasks.get(day, this::expand);
+        }
+
+        private int expand(int day) {
+            LocalDate date;
+            try {
+                date = LocalDate.of(day / 10000, day / 100 % 100, day % 100);
+            } catch (DateTimeException exception) {
+                return 0;
+            }
+            int mask = 0;
+            for (BlockTimeRule rule : rules) {
+                if (rule.appliesTo(date)) {
+                    mask |= rule.getSlotMask();
+                }
+            }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package barbershop.block_time_service.services.impl;
+
+import barbershop.block_time_service.Utils.DaySlotMasks;
+import barbershop.block_time_service.Utils.Utils;
+import barbershop.block_time_service.dtos.request.SaveBlockTimeRuleRequest;
+import barbershop.block_time_service.dtos.response.BaseResponse;
+import barbershop.block_time_service.dtos.response.FieldErrorsResponse;
+import barbershop.block_time_service.entities.BlockTimeRule;
+import barbershop.block_time_service.enums.RecurrenceType;
+import barbershop.block_time_service.exception.ResourceNotFoundException;
+import barbershop.block_time_service.repositories.BlockTimeRuleRepository;
+import barbershop.block_time_service.services.BlockTimeCalendarService;
+import barbershop.block_time_service.services.BlockTimeRuleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+@Service
+public class BlockTimeRuleServiceImpl implements BlockTimeRuleService {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Autowired
+    private BlockTimeRuleRepository blockTimeRuleRepository;
+
+    @Autowired
+    private BlockTimeCalendarService blockTimeCalendarService;
+
+    @Override
+    public BaseResponse getAllBlockTimeRules() throws Exception {
+        List<Map<String, Object>> listBlockTimeRuleMap = new ArrayList<>();
+        for (BlockTimeRule blockTimeRule : blockTimeRuleRepository.findAll(Sort.by(Sort.Direction.DESC, "id"))) {
+            listBlockTimeRuleMap.add(toBlockTimeRuleMap(blockTimeRule));
+        }
+        return new BaseResponse(listBlockTimeRuleMap);
+    }
+
+    @Override
+    @Transactional
+    public BaseResponse createNewBlockTimeRule(SaveBlockTimeRuleRequest saveBlockTimeRuleRequest) throws Exception {
+        RecurrenceType type;
+        try {
+            type = RecurrenceType.valueOf(String.valueOf(saveBlockTimeRuleRequest.getType()));
+        } catch (IllegalArgumentException exception) {
+            throw fieldError("type", "Type must be DAILY or WEEKLY");
+        }
+
+        int daysOfWeek = 0;
+        if (type == RecurrenceType.WEEKLY) {
+            if (saveBlockTimeRuleRequest.getDaysOfWeek() == null || saveBlockTimeRuleRequest.getDaysOfWeek().isEmpty()) {
+                throw fieldError("days of week", "Days of week is not empty");
+            }
+            for (Integer dayOfWeek : saveBlockTimeRuleRequest.getDaysOfWeek()) {
+                if (dayOfWeek == null || dayOfWeek < 1 || dayOfWeek > 7) {
+                    throw fieldError("days of week", "Day of week must be in [1; 7] (1 = Monday)");
+                }
+                daysOfWeek |= 1 << (dayOfWeek - 1);
+            }
+        }
+
+        LocalDate startDate = parseDate(saveBlockTimeRuleRequest.getStartDate());
+        if (startDate == null) {
+            throw fieldError("start date", "Invalid start date");
+        }
+        LocalDate endDate = null;
+        if (saveBlockTimeRuleRequest.getEndDate() != null && !saveBlockTimeRuleRequest.getEndDate().isEmpty()) {
+            endDate = parseDate(saveBlockTimeRuleRequest.getEndDate());
+            if (endDate == null) {
+                throw fieldError("end date", "Invalid end date");
+            }
+            if (endDate.isBefore(startDate)) {
+                throw fieldError("end date", "End date must be greater than or equals start date");
+            }
+        }
+
+        int startSlot = DaySlotMasks.toSlotIndex(saveBlockTimeRuleRequest.getStartTime());
+        int endSlot = DaySlotMasks.toSlotIndex(saveBlockTimeRuleRequest.getEndTime());
+        if (startSlot < 0 || endSlot < 0) {
+            throw fieldError("start time; end time", "Time must be a booking slot from 08:00 to 20:00, every 30 minutes");
+        }
+        if (endSlot < startSlot) {
+            throw fieldError("start time; end time", "End time must be greater than or equals start time");
+        }
+
+        BlockTimeRule blockTimeRule = BlockTimeRule.builder()
+                .type(type)
+                .daysOfWeek(daysOfWeek)
+                .startDate(startDate)
+                .endDate(endDate)
+                // Các slot từ startSlot tới endSlot
+                .slotMask(((1 << (endSlot + 1)) - 1) & ~((1 << startSlot) - 1))
+                .build();
+        blockTimeRule = blockTimeRuleRepository.save(blockTimeRule);
+        blockTimeCalendarService.markRulesChanged();
+
+        return new BaseResponse(toBlockTimeRuleMap(blockTimeRule));
+    }
+
+    @Override
+    @Transactional
+    public BaseResponse deleteBlockTimeRule(String blockTimeRuleId) throws Exception {
+        int id;
+        try {
+            id = Integer.parseInt(blockTimeRuleId);
+        } catch (Exception exception) {
+            throw fieldError("id", "Id is invalid integer format");
+        }
+
+        if (!blockTimeRuleRepository.existsById(id)) {
+            throw new ResourceNotFoundException("BlockTimeRule with id " + id + " not found");
+        }
+        blockTimeRuleRepository.deleteById(id);
+        blockTimeCalendarService.markRulesChanged();
+
+        return new BaseResponse(Map.of("message", "Deleted block time rule " + id + " successfully"));
+    }
+
+    private Map<String, Object> toBlockTimeRuleMap(BlockTimeRule blockTimeRule) {
+        List<Integer> daysOfWeek = new ArrayList<>();
+        for (int day = 1; day <= 7; day++) {
+            if ((blockTimeRule.getDaysOfWeek() & (1 << (day - 1))) != 0) {
+                daysOfWeek.add(day);
+            }
+        }
+        List<String> timeSlots = Utils.generateTimeSlots();
+        List<String> slots = new ArrayList<>();
+        for (int slot = 0; slot < DaySlotMasks.SLOT_COUNT; slot++) {
+            if ((blockTimeRule.getSlotMask() & (1 << slot)) != 0) {
+                slots.add(timeSlots.get(slot));
+            }
+        }
+
+        Map<String, Object> mapBlockTimeRule = new LinkedHashMap<>();
+        mapBlockTimeRule.put("id", blockTimeRule.getId());
+        mapBlockTimeRule.put("type", blockTimeRule.getType());
+        mapBlockTimeRule.put("daysOfWeek", daysOfWeek);
+        mapBlockTimeRule.put("startDate", blockTimeRule.getStartDate().format(DATE_FORMATTER));
+        mapBlockTimeRule.put("endDate", blockTimeRule.getEndDate() == null ? null : blockTimeRule.getEndDate().format(DATE_FORMATTER));
+        mapBlockTimeRule.put("slots", slots);
+        return mapBlockTimeRule;
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date, DATE_FORMATTER);
+        } catch (DateTimeParseException exception) {
+            return null;
+        }
+    }
+
+    private static FieldErrorsResponse fieldError(String field, String message) {
+        return FieldErrorsResponse
+                .builder()
+                .errors(List.of(
+                        FieldErrorsResponse.FieldError.builder()
+                                .field(field)
+                                .message(message)
+                                .resource("SaveBlockTimeRuleRequest")
+                                .build()
+                ))
+                .build();
+    }
+}
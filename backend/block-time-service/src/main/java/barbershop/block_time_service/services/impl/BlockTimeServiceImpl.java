@@ -1,29 +1,58 @@
 package barbershop.block_time_service.services.impl;
 
+import barbershop.block_time_service.Utils.DaySlotMasks;
 import barbershop.block_time_service.Utils.Utils;
+import barbershop.block_time_service.dtos.request.BulkDeleteBlockTimeRequest;
+import barbershop.block_time_service.dtos.request.BulkSaveBlockTimeRequest;
 import barbershop.block_time_service.dtos.request.SaveBlockTimeRequest;
 import barbershop.block_time_service.dtos.request.GetAllBlockTimesRequest;
 import barbershop.block_time_service.dtos.response.BaseResponse;
 import barbershop.block_time_service.dtos.response.FieldErrorsResponse;
 import barbershop.block_time_service.dtos.response.PaginationResponse;
 import barbershop.block_time_service.entities.BlockTime;
+import barbershop.block_time_service.entities.BlockTimeRule;
 import barbershop.block_time_service.enums.TimeZone;
 import barbershop.block_time_service.exception.ResourceNotFoundException;
 import barbershop.block_time_service.repositories.BlockTimeRepository;
+import barbershop.block_time_service.services.BlockTimeCalendarService;
 import barbershop.block_time_service.services.BlockTimeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
 public class BlockTimeServiceImpl implements BlockTimeService {
+    private static final DateTimeFormatter SLOT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
     @Autowired
     private BlockTimeRepository blockTimeRepository;
 
+    @Autowired
+    private BlockTimeCalendarService blockTimeCalendarService;
+
+    @Value("${block-time.bulk.max-slots:1000}")
+    private int bulkMaxSlots;
+
+    @Value("${block-time.bulk.max-days:31}")
+    private int bulkMaxDays;
+
+    @Value("${block-time.bulk.insert-chunk-size:500}")
+    private int bulkInsertChunkSize;
+
     @Override
     public PaginationResponse getAllBlockTimes(GetAllBlockTimesRequest getAllBlockTimesRequest) throws Exception {
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
@@ -132,13 +161,19 @@ public class BlockTimeServiceImpl implements BlockTimeService {
             }
         }
 
+        // Có range (tối đa 7 ngày): gộp block lẻ với block lặp lại expand trong range rồi phân trang trong bộ nhớ.
+        // Không có range thì chỉ liệt kê block lẻ, block lặp lại xem ở /admin/rules
+        if (getAllBlockTimesRequest.getRange() != null) {
+            return getAllBlockTimesInRange(getAllBlockTimesRequest);
+        }
+
         List<BlockTime> blockTimes = blockTimeRepository.getAllBlockTime(getAllBlockTimesRequest);
         List<Map<String, Object>> listBlockTimeMap = new ArrayList<>();
         for (BlockTime blockTime : blockTimes) {
             Map<String, Object> mapBlockTime = new LinkedHashMap<>();
             mapBlockTime.put("id", blockTime.getId());
-            mapBlockTime.put("date", blockTime.getDate());
-            mapBlockTime.put("time", blockTime.getTime());
+            mapBlockTime.put("date", formatDate(blockTime.getDate()));
+            mapBlockTime.put("time", formatTime(blockTime.getTime()));
             listBlockTimeMap.add(mapBlockTime);
         }
 
@@ -155,8 +190,66 @@ public class BlockTimeServiceImpl implements BlockTimeService {
         return paginationResponse;
     }
 
+    private PaginationResponse getAllBlockTimesInRange(GetAllBlockTimesRequest getAllBlockTimesRequest) {
+        LocalDate startDate = LocalDate.parse(getAllBlockTimesRequest.getRange().split(",")[0].trim(), DATE_FORMATTER);
+        LocalDate endDate = LocalDate.parse(getAllBlockTimesRequest.getRange().split(",")[1].trim(), DATE_FORMATTER);
+
+        List<Map<String, Object>> listBlockTimeMap = new ArrayList<>();
+        for (BlockTime blockTime : blockTimeRepository.findAllByDateBetween(startDate, endDate)) {
+            Map<String, Object> mapBlockTime = new LinkedHashMap<>();
+            mapBlockTime.put("id", blockTime.getId());
+            mapBlockTime.put("date", formatDate(blockTime.getDate()));
+            mapBlockTime.put("time", formatTime(blockTime.getTime()));
+            listBlockTimeMap.add(mapBlockTime);
+        }
+
+        List<String> timeSlots = Utils.generateTimeSlots();
+        List<BlockTimeRule> rules = blockTimeCalendarService.getRules();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            for (BlockTimeRule rule : rules) {
+                if (!rule.appliesTo(date)) {
+                    continue;
+                }
+                for (int slot = 0; slot < DaySlotMasks.SLOT_COUNT; slot++) {
+                    if ((rule.getSlotMask() & (1 << slot)) != 0) {
+                        Map<String, Object> mapBlockTime = new LinkedHashMap<>();
+                        mapBlockTime.put("ruleId", rule.getId());
+                        mapBlockTime.put("date", formatDate(date));
+                        mapBlockTime.put("time", timeSlots.get(slot));
+                        listBlockTimeMap.add(mapBlockTime);
+                    }
+                }
+            }
+        }
+
+        // "yyyy-MM-dd HH:mm" so sánh chuỗi đúng thứ tự thời gian
+        Comparator<Map<String, Object>> comparator = Comparator.comparing(
+                (Map<String, Object> mapBlockTime) -> mapBlockTime.get("date") + " " + mapBlockTime.get("time"));
+        if (!"asc".equals(getAllBlockTimesRequest.getSortBy())) {
+            comparator = comparator.reversed();
+        }
+        listBlockTimeMap.sort(comparator);
+
+        int page = Integer.parseInt(getAllBlockTimesRequest.getPage());
+        int items = Integer.parseInt(getAllBlockTimesRequest.getItems());
+        int from = Math.min((page - 1) * items, listBlockTimeMap.size());
+        int to = Math.min(from + items, listBlockTimeMap.size());
+
+        PaginationResponse paginationResponse = PaginationResponse.builder()
+                .meta(PaginationResponse.Meta.builder()
+                        .totalRecords(listBlockTimeMap.size())
+                        .items(items)
+                        .page(page)
+                        .build())
+                .build();
+        paginationResponse.setData(new ArrayList<>(listBlockTimeMap.subList(from, to)));
+
+        return paginationResponse;
+    }
+
+    // Lỗi unique khi flush đánh dấu rollback-only, FieldErrorsResponse cũng phải rollback để không bị UnexpectedRollbackException
     @Override
-    @Transactional
+    @Transactional(rollbackFor = Exception.class)
     public BaseResponse createNewBlockTime(SaveBlockTimeRequest saveBlockTimeRequest) throws Exception {
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
 
@@ -175,14 +268,12 @@ public class BlockTimeServiceImpl implements BlockTimeService {
                     .build();
         }
 
-        BlockTime blockTime = blockTimeRepository.findByDateAndTime(
-                saveBlockTimeRequest.getDate(), saveBlockTimeRequest.getTime()
-        ).orElse(null);
-        if (blockTime != null) {
+        // Lịch block trong bộ nhớ chỉ biểu diễn các slot đặt lịch (08:00 - 20:00, mỗi 30 phút)
+        if (DaySlotMasks.toSlotIndex(saveBlockTimeRequest.getTime()) < 0) {
             listFieldErrors.add(
                     FieldErrorsResponse.FieldError.builder()
-                            .field("date; time")
-                            .message("Date and time is existed")
+                            .field("time")
+                            .message("Time must be a booking slot from 08:00 to 20:00, every 30 minutes")
                             .resource("SaveBlockTimeRequest")
                             .build()
             );
@@ -192,22 +283,39 @@ public class BlockTimeServiceImpl implements BlockTimeService {
                     .build();
         }
 
-        blockTime = BlockTime.builder()
-                .date(saveBlockTimeRequest.getDate())
-                .time(saveBlockTimeRequest.getTime())
+        LocalDateTime slot = toSlot(saveBlockTimeRequest);
+        BlockTime blockTime = BlockTime.builder()
+                .date(slot.toLocalDate())
+                .time(slot.toLocalTime())
                 .build();
 
-        blockTime = blockTimeRepository.save(blockTime);
+        // Trùng (date, time) do unique index uk_block_times_date_time chặn, không cần đọc trước
+        try {
+            blockTime = blockTimeRepository.saveAndFlush(blockTime);
+        } catch (DataIntegrityViolationException exception) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("date; time")
+                            .message("Date and time is existed")
+                            .resource("SaveBlockTimeRequest")
+                            .build()
+            );
+            throw FieldErrorsResponse
+                    .builder()
+                    .errors(listFieldErrors)
+                    .build();
+        }
+        blockTimeCalendarService.markChanged(blockTime.getDate());
 
         return new BaseResponse(Map.of(
                 "id", blockTime.getId(),
-                "date", blockTime.getDate(),
-                "time", blockTime.getTime()
+                "date", formatDate(blockTime.getDate()),
+                "time", formatTime(blockTime.getTime())
         ));
     }
 
     @Override
-    @Transactional
+    @Transactional(rollbackFor = Exception.class)
     public BaseResponse updateBlockTime(String blockTimeId, SaveBlockTimeRequest saveBlockTimeRequest) throws Exception {
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
 
@@ -243,16 +351,34 @@ public class BlockTimeServiceImpl implements BlockTimeService {
                     .build();
         }
 
+        // Lịch block trong bộ nhớ chỉ biểu diễn các slot đặt lịch (08:00 - 20:00, mỗi 30 phút)
+        if (DaySlotMasks.toSlotIndex(saveBlockTimeRequest.getTime()) < 0) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("time")
+                            .message("Time must be a booking slot from 08:00 to 20:00, every 30 minutes")
+                            .resource("SaveBlockTimeRequest")
+                            .build()
+            );
+            throw FieldErrorsResponse
+                    .builder()
+                    .errors(listFieldErrors)
+                    .build();
+        }
+
         BlockTime blockTime = blockTimeRepository.findById(id).orElse(null);
         if (blockTime == null) {
             throw new ResourceNotFoundException("BlockTime with id " + id + " not found");
         }
+        LocalDate oldDate = blockTime.getDate();
 
+        LocalDateTime slot = toSlot(saveBlockTimeRequest);
+        blockTime.setDate(slot.toLocalDate());
+        blockTime.setTime(slot.toLocalTime());
 
-        blockTime = blockTimeRepository.findByDateAndTime(
-                saveBlockTimeRequest.getDate(), saveBlockTimeRequest.getTime()
-        ).orElse(null);
-        if (blockTime != null && blockTime.getId() != id) {
+        try {
+            blockTimeRepository.saveAndFlush(blockTime);
+        } catch (DataIntegrityViolationException exception) {
             listFieldErrors.add(
                     FieldErrorsResponse.FieldError.builder()
                             .field("date; time")
@@ -265,18 +391,14 @@ public class BlockTimeServiceImpl implements BlockTimeService {
                     .errors(listFieldErrors)
                     .build();
         }
-
-        blockTime = BlockTime.builder()
-                .date(saveBlockTimeRequest.getDate())
-                .time(saveBlockTimeRequest.getTime())
-                .build();
-        blockTime.setId(id);
-
-        blockTimeRepository.save(blockTime);
+        blockTimeCalendarService.markChanged(oldDate);
+        if (!oldDate.equals(blockTime.getDate())) {
+            blockTimeCalendarService.markChanged(blockTime.getDate());
+        }
         return new BaseResponse(Map.of(
                 "id", id,
-                "date", blockTime.getDate(),
-                "time", blockTime.getTime()
+                "date", formatDate(blockTime.getDate()),
+                "time", formatTime(blockTime.getTime())
         ));
     }
 
@@ -308,8 +430,9 @@ public class BlockTimeServiceImpl implements BlockTimeService {
         }
 
         blockTimeRepository.deleteById(id);
+        blockTimeCalendarService.markChanged(blockTime.getDate());
 
-        return new BaseResponse(Map.of("message", "Deleted block time: \"" + blockTime.getDate() + " " + blockTime.getTime() + "\" successfully"));
+        return new BaseResponse(Map.of("message", "Deleted block time: \"" + formatDate(blockTime.getDate()) + " " + formatTime(blockTime.getTime()) + "\" successfully"));
     }
 
     @Override
@@ -340,8 +463,208 @@ public class BlockTimeServiceImpl implements BlockTimeService {
 
         return new BaseResponse(Map.of(
                 "id", id,
-                "date", blockTime.getDate(),
-                "time", blockTime.getTime()
+                "date", formatDate(blockTime.getDate()),
+                "time", formatTime(blockTime.getTime())
         ));
     }
+
+    @Override
+    @Transactional
+    public BaseResponse createNewBlockTimes(BulkSaveBlockTimeRequest bulkSaveBlockTimeRequest) throws Exception {
+        List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
+        Set<LocalDateTime> slots = new LinkedHashSet<>();
+
+        // Validate toàn bộ request một lượt, trả về mọi lỗi cùng lúc
+        if (bulkSaveBlockTimeRequest.getBlockTimes() != null && !bulkSaveBlockTimeRequest.getBlockTimes().isEmpty()) {
+            for (int i = 0; i < bulkSaveBlockTimeRequest.getBlockTimes().size(); i++) {
+                SaveBlockTimeRequest saveBlockTimeRequest = bulkSaveBlockTimeRequest.getBlockTimes().get(i);
+                LocalDateTime slot = saveBlockTimeRequest == null
+                        ? null
+                        : parseSlot(saveBlockTimeRequest.getDate(), saveBlockTimeRequest.getTime());
+                if (slot == null) {
+                    listFieldErrors.add(
+                            FieldErrorsResponse.FieldError.builder()
+                                    .field("blockTimes[" + i + "]")
+                                    .message("Invalid date and time, time must be a booking slot from 08:00 to 20:00, every 30 minutes")
+                                    .resource("BulkSaveBlockTimeRequest")
+                                    .build()
+                    );
+                    continue;
+                }
+                slots.add(slot);
+            }
+        } else {
+            LocalDate[] range = parseRange(
+                    bulkSaveBlockTimeRequest.getStartDate(),
+                    bulkSaveBlockTimeRequest.getEndDate(),
+                    "BulkSaveBlockTimeRequest",
+                    listFieldErrors
+            );
+            List<LocalTime> times = parseTimes(bulkSaveBlockTimeRequest.getTimes(), "BulkSaveBlockTimeRequest", listFieldErrors);
+            if (range != null && times.isEmpty()) {
+                for (String timeSlot : Utils.generateTimeSlots()) {
+                    times.add(LocalTime.parse(timeSlot, TIME_FORMATTER));
+                }
+            }
+            if (range != null) {
+                for (LocalDate date = range[0]; !date.isAfter(range[1]); date = date.plusDays(1)) {
+                    for (LocalTime time : times) {
+                        slots.add(date.atTime(time));
+                    }
+                }
+            }
+        }
+
+        if (slots.size() > bulkMaxSlots) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("blockTimes")
+                            .message("At most " + bulkMaxSlots + " slots per request")
+                            .resource("BulkSaveBlockTimeRequest")
+                            .build()
+            );
+        }
+        if (slots.isEmpty() && listFieldErrors.isEmpty()) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("blockTimes")
+                            .message("Block times is not empty")
+                            .resource("BulkSaveBlockTimeRequest")
+                            .build()
+            );
+        }
+        if (!listFieldErrors.isEmpty()) {
+            throw FieldErrorsResponse
+                    .builder()
+                    .errors(listFieldErrors)
+                    .build();
+        }
+
+        // Multi-row insert theo chunk, slot đã block thì bỏ qua nhờ unique index
+        List<LocalDateTime> slotList = new ArrayList<>(slots);
+        int created = 0;
+        for (int from = 0; from < slotList.size(); from += bulkInsertChunkSize) {
+            created += blockTimeRepository.insertBlockTimesIgnoreExisting(
+                    slotList.subList(from, Math.min(from + bulkInsertChunkSize, slotList.size())));
+        }
+
+        Set<LocalDate> dates = new TreeSet<>();
+        for (LocalDateTime slot : slotList) {
+            dates.add(slot.toLocalDate());
+        }
+        for (LocalDate date : dates) {
+            blockTimeCalendarService.markChanged(date);
+        }
+
+        return new BaseResponse(Map.of(
+                "requested", slotList.size(),
+                "created", created
+        ));
+    }
+
+    @Override
+    @Transactional
+    public BaseResponse deleteBlockTimes(BulkDeleteBlockTimeRequest bulkDeleteBlockTimeRequest) throws Exception {
+        List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
+
+        LocalDate[] range = parseRange(
+                bulkDeleteBlockTimeRequest.getStartDate(),
+                bulkDeleteBlockTimeRequest.getEndDate(),
+                "BulkDeleteBlockTimeRequest",
+                listFieldErrors
+        );
+        List<LocalTime> times = parseTimes(bulkDeleteBlockTimeRequest.getTimes(), "BulkDeleteBlockTimeRequest", listFieldErrors);
+        if (!listFieldErrors.isEmpty()) {
+            throw FieldErrorsResponse
+                    .builder()
+                    .errors(listFieldErrors)
+                    .build();
+        }
+
+        // Một câu delete theo range trên uk_block_times_date_time, times rỗng thì xoá cả ngày
+        int deleted = blockTimeRepository.deleteBlockTimesInRange(range[0], range[1], times);
+        for (LocalDate date = range[0]; !date.isAfter(range[1]); date = date.plusDays(1)) {
+            blockTimeCalendarService.markChanged(date);
+        }
+
+        return new BaseResponse(Map.of("deleted", deleted));
+    }
+
+    // null nếu không phải slot đặt lịch hợp lệ
+    private LocalDateTime parseSlot(String date, String time) {
+        if (date == null || DaySlotMasks.toSlotIndex(time) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(date + " " + time, SLOT_FORMATTER);
+        } catch (DateTimeParseException exception) {
+            return null;
+        }
+    }
+
+    // [startDate, endDate] trong tối đa bulkMaxDays ngày, null và thêm lỗi nếu không hợp lệ
+    private LocalDate[] parseRange(String startDate, String endDate, String resource, List<FieldErrorsResponse.FieldError> listFieldErrors) {
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(String.valueOf(startDate), DATE_FORMATTER);
+            end = LocalDate.parse(String.valueOf(endDate), DATE_FORMATTER);
+        } catch (DateTimeParseException exception) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("start date; end date")
+                            .message("Invalid start date or end date")
+                            .resource(resource)
+                            .build()
+            );
+            return null;
+        }
+
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        if (days < 1 || days > bulkMaxDays) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("start date; end date")
+                            .message("Invalid range: range in [1;" + bulkMaxDays + "] days")
+                            .resource(resource)
+                            .build()
+            );
+            return null;
+        }
+        return new LocalDate[]{start, end};
+    }
+
+    private List<LocalTime> parseTimes(List<String> times, String resource, List<FieldErrorsResponse.FieldError> listFieldErrors) {
+        List<LocalTime> result = new ArrayList<>();
+        if (times == null) {
+            return result;
+        }
+        for (int i = 0; i < times.size(); i++) {
+            if (DaySlotMasks.toSlotIndex(times.get(i)) < 0) {
+                listFieldErrors.add(
+                        FieldErrorsResponse.FieldError.builder()
+                                .field("times[" + i + "]")
+                                .message("Time must be a booking slot from 08:00 to 20:00, every 30 minutes")
+                                .resource(resource)
+                                .build()
+                );
+                continue;
+            }
+            result.add(LocalTime.parse(times.get(i), TIME_FORMATTER));
+        }
+        return result;
+    }
+
+    // Request đã qua Utils.parseDate cùng pattern nên parse ở đây không lỗi
+    private LocalDateTime toSlot(SaveBlockTimeRequest saveBlockTimeRequest) {
+        return LocalDateTime.parse(saveBlockTimeRequest.getDate() + " " + saveBlockTimeRequest.getTime(), SLOT_FORMATTER);
+    }
+
+    private static String formatDate(LocalDate date) {
+        return date.format(DATE_FORMATTER);
+    }
+
+    private static String formatTime(LocalTime time) {
+        return time.format(TIME_FORMATTER);
+    }
 }
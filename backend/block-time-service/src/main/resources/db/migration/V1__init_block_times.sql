@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS `block_times` (
+    `id` INT NOT NULL AUTO_INCREMENT,
+    `created_at` DATETIME(6) NOT NULL,
+    `updated_at` DATETIME(6) NOT NULL,
+    `date` VARCHAR(255) NOT NULL,
+    `time` VARCHAR(255) NOT NULL,
+    PRIMARY KEY (`id`)
+) ENGINE=InnoDB;
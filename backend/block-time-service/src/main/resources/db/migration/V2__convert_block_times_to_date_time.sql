@@ -0,0 +1,12 @@
+-- Bản ghi trùng (date, time) do check-then-insert cũ: giữ bản ghi có id nhỏ nhất
+DELETE bt FROM `block_times` bt
+JOIN `block_times` kept
+    ON kept.`date` = bt.`date` AND kept.`time` = bt.`time` AND kept.`id` < bt.`id`;
+
+-- 'yyyy-MM-dd' -> DATE, 'HH:mm' -> TIME
+ALTER TABLE `block_times`
+    MODIFY `date` DATE NOT NULL,
+    MODIFY `time` TIME NOT NULL;
+
+-- Chống trùng bằng constraint; range theo date (admin list, lịch block) dùng luôn index này
+CREATE UNIQUE INDEX `uk_block_times_date_time` ON `block_times` (`date`, `time`);
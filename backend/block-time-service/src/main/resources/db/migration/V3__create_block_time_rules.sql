@@ -0,0 +1,15 @@
+-- Block lặp lại (nghỉ trưa hằng ngày, nghỉ thứ Hai...): một dòng cho cả chuỗi ngày, expand theo ngày khi đọc
+CREATE TABLE IF NOT EXISTS `block_time_rules` (
+    `id` INT NOT NULL AUTO_INCREMENT,
+    `created_at` DATETIME(6) NOT NULL,
+    `updated_at` DATETIME(6) NOT NULL,
+    `type` VARCHAR(16) NOT NULL,
+    -- WEEKLY: bit (d - 1) = thứ d theo ISO (1 = thứ Hai ... 7 = Chủ nhật)
+    `days_of_week` INT NOT NULL,
+    `start_date` DATE NOT NULL,
+    -- NULL: không có ngày kết thúc
+    `end_date` DATE NULL,
+    -- bit i = slot thứ i tính từ 08:00
+    `slot_mask` INT NOT NULL,
+    PRIMARY KEY (`id`)
+) ENGINE=InnoDB;
@@ -0,0 +1,131 @@
+package barbershop.block_time_service.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DaySlotMasksTest {
+    @Test
+    void returnsZeroForMissingDay() {
+        DaySlotMasks masks = new DaySlotMasks(4);
+        masks.put(20261018, 0b101);
+
+        assertEquals(0, masks.get(20261019));
+        assertEquals(0, masks.get(0));
+        assertEquals(1, masks.size());
+    }
+
+    @Test
+    void putOverwritesExistingDay() {
+        DaySlotMasks masks = new DaySlotMasks(4);
+        masks.put(20261018, 0b1);
+        masks.put(20261018, DaySlotMasks.ALL_SLOTS);
+
+        assertEquals(DaySlotMasks.ALL_SLOTS, masks.get(20261018));
+        assertEquals(1, masks.size());
+    }
+
+    @Test
+    void collidingDaysKeepSeparateMasks() {
+        // Bảng 4 ô: tìm các ngày có cùng ô đầu để ép linear probing
+        DaySlotMasks masks = new DaySlotMasks(2);
+        int first = 20261001;
+        int second = first + 1;
+        while (homeSlot(second, 4) != homeSlot(first, 4)) {
+            second++;
+        }
+        int third = second + 1;
+        while (homeSlot(third, 4) != homeSlot(first, 4)) {
+            third++;
+        }
+
+        masks.put(first, 0b1);
+        masks.put(second, 0b10);
+
+        assertEquals(0b1, masks.get(first));
+        assertEquals(0b10, masks.get(second));
+        // Ngày cùng ô nhưng chưa có phải đi hết chuỗi probe rồi trả về 0
+        assertEquals(0, masks.get(third));
+
+        masks.put(third, 0b100);
+        assertEquals(0b1, masks.get(first));
+        assertEquals(0b10, masks.get(second));
+        assertEquals(0b100, masks.get(third));
+        assertEquals(3, masks.size());
+    }
+
+    @Test
+    void resizeKeepsAllEntries() {
+        DaySlotMasks masks = new DaySlotMasks(1);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 1000; i++) {
+            int day = DaySlotMasks.toDayKey(start.plusDays(i));
+            masks.put(day, (i % DaySlotMasks.ALL_SLOTS) + 1);
+        }
+
+        assertEquals(1000, masks.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals((i % DaySlotMasks.ALL_SLOTS) + 1, masks.get(DaySlotMasks.toDayKey(start.plusDays(i))));
+        }
+        assertEquals(0, masks.get(DaySlotMasks.toDayKey(start.minusDays(1))));
+        assertEquals(0, masks.get(DaySlotMasks.toDayKey(start.plusDays(1000))));
+    }
+
+    @Test
+    void copyIsIsolatedAndDropsEmptyMasks() {
+        DaySlotMasks original = new DaySlotMasks(4);
+        original.put(20261018, 0b11);
+        original.put(20261019, 0b100);
+        original.put(20261020, 0);
+
+        DaySlotMasks copy = original.copy();
+        assertEquals(2, copy.size());
+        assertEquals(0b11, copy.get(20261018));
+        assertEquals(0b100, copy.get(20261019));
+
+        copy.put(20261018, 0b1);
+        copy.put(20261021, 0b1000);
+        assertEquals(0b11, original.get(20261018));
+        assertEquals(0, original.get(20261021));
+        assertEquals(3, original.size());
+
+        original.put(20261019, DaySlotMasks.ALL_SLOTS);
+        assertEquals(0b100, copy.get(20261019));
+        assertNotEquals(original.get(20261019), copy.get(20261019));
+    }
+
+    @Test
+    void parsesDayKey() {
+        assertEquals(20261018, DaySlotMasks.toDayKey("2026-10-18"));
+        assertEquals(20261018, DaySlotMasks.toDayKey(LocalDate.of(2026, 10, 18)));
+        assertEquals(-1, DaySlotMasks.toDayKey((String) null));
+        assertEquals(-1, DaySlotMasks.toDayKey("2026/10/18"));
+        assertEquals(-1, DaySlotMasks.toDayKey("2026-13-01"));
+        assertEquals(-1, DaySlotMasks.toDayKey("2026-10-32"));
+        assertEquals(-1, DaySlotMasks.toDayKey("2026-1a-18"));
+        assertEquals(-1, DaySlotMasks.toDayKey("2026-10-180"));
+    }
+
+    @Test
+    void parsesSlotIndex() {
+        assertEquals(0, DaySlotMasks.toSlotIndex("08:00"));
+        assertEquals(1, DaySlotMasks.toSlotIndex("08:30"));
+        assertEquals(DaySlotMasks.SLOT_COUNT - 1, DaySlotMasks.toSlotIndex("20:00"));
+        assertEquals(DaySlotMasks.SLOT_COUNT - 1, DaySlotMasks.toSlotIndex(LocalTime.of(20, 0)));
+        assertEquals(-1, DaySlotMasks.toSlotIndex("20:30"));
+        assertEquals(-1, DaySlotMasks.toSlotIndex("07:30"));
+        assertEquals(-1, DaySlotMasks.toSlotIndex("09:15"));
+        assertEquals(-1, DaySlotMasks.toSlotIndex("9:00"));
+        assertEquals(-1, DaySlotMasks.toSlotIndex(LocalTime.of(9, 0, 1)));
+    }
+
+    // Cùng hàm băm với DaySlotMasks.slot, chỉ dùng để chọn các ngày va chạm
+    private static int homeSlot(int day, int capacity) {
+        int h = day * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,45 @@
+package barbershop.common.outbox;
+
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import javax.persistence.*;
+import java.util.Date;
+
+// Event chờ relay đẩy lên Kafka, ghi cùng transaction với thay đổi nghiệp vụ
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @Column(name = "created_at", updatable = false, nullable = false)
+    @CreationTimestamp
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    @UpdateTimestamp
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+
+    @Column(name="topic", nullable = false)
+    private String topic;
+
+    @Column(name="payload", nullable = false)
+    private String payload;
+
+    @Column(name="attempts", nullable = false)
+    private int attempts;
+
+    @Column(name="available_at", nullable = false)
+    private Date availableAt;
+}
@@ -0,0 +1,26 @@
+package barbershop.common.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Integer> {
+    // SKIP LOCKED để nhiều instance relay song song không lấy trùng event
+    @Query(value = "select * from outbox_events where available_at <= :now order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> findReadyForUpdate(@Param("now") Date now, @Param("limit") int limit);
+
+    // Giữ event cho relay hiện tại tới claimedUntil, relay khác chỉ lấy lại khi instance này chết giữa chừng
+    @Modifying
+    @Query("update OutboxEvent e set e.availableAt = :claimedUntil where e.id in :ids")
+    int claim(@Param("ids") List<Integer> ids, @Param("claimedUntil") Date claimedUntil);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = :attempts, e.availableAt = :availableAt where e.id = :id")
+    int reschedule(@Param("id") int id, @Param("attempts") int attempts, @Param("availableAt") Date availableAt);
+}
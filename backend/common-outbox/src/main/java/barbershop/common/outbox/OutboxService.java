@@ -0,0 +1,7 @@
+package barbershop.common.outbox;
+
+public interface OutboxService {
+    void publish(String topic, String payload);
+
+    void relay();
+}
@@ -0,0 +1,138 @@
+package barbershop.common.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox dùng chung: publish ghi event cùng transaction của caller, relay định kỳ đẩy lên Kafka.
+ * Service khai báo bean với prefix config của mình, cấu hình đọc từ "<configPrefix>.outbox.*".
+ * Relay được đăng ký vào scheduler của service (cần @EnableScheduling) với chu kỳ "<configPrefix>.outbox.relay-interval-ms".
+ */
+@Slf4j
+public class OutboxServiceImpl implements OutboxService, SchedulingConfigurer {
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long relayIntervalMs;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    // Phải lớn hơn send-timeout-ms: hết hạn mà relay chưa xong thì relay khác sẽ gửi lại (at-least-once)
+    private final long claimLeaseMs;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+
+    public OutboxServiceImpl(
+            OutboxEventRepository outboxEventRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            PropertyResolver properties,
+            String configPrefix) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        String prefix = configPrefix + ".outbox.";
+        this.relayIntervalMs = properties.getProperty(prefix + "relay-interval-ms", Long.class, 500L);
+        this.batchSize = properties.getProperty(prefix + "batch-size", Integer.class, 200);
+        this.sendTimeoutMs = properties.getProperty(prefix + "send-timeout-ms", Long.class, 10000L);
+        this.claimLeaseMs = properties.getProperty(prefix + "claim-lease-ms", Long.class, 60000L);
+        this.retryBackoffMs = properties.getProperty(prefix + "retry-backoff-ms", Long.class, 1000L);
+        this.maxRetryBackoffMs = properties.getProperty(prefix + "max-retry-backoff-ms", Long.class, 300000L);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::relay, relayIntervalMs);
+    }
+
+    // Tham gia transaction của caller nếu có, request path chỉ còn một insert local
+    @Override
+    @Transactional
+    public void publish(String topic, String payload) {
+        outboxEventRepository.save(
+                OutboxEvent.builder()
+                        .topic(topic)
+                        .payload(payload)
+                        .attempts(0)
+                        .availableAt(new Date())
+                        .build()
+        );
+    }
+
+    // Claim batch trong một transaction ngắn (lùi available_at tới hết lease) rồi mới gửi, không giữ row lock khi chờ broker.
+    // Gửi cả batch rồi mới chờ ack để producer gom theo linger/compression.
+    // Gửi được thì xóa, lỗi thì tăng attempts và lùi available_at (exponential backoff)
+    @Override
+    public void relay() {
+        List<OutboxEvent> outboxEvents = transactionTemplate.execute(status -> {
+            List<OutboxEvent> readyEvents = outboxEventRepository.findReadyForUpdate(new Date(), batchSize);
+            if (!readyEvents.isEmpty()) {
+                List<Integer> ids = new ArrayList<>();
+                for (OutboxEvent outboxEvent : readyEvents) {
+                    ids.add(outboxEvent.getId());
+                }
+                outboxEventRepository.claim(ids, new Date(System.currentTimeMillis() + claimLeaseMs));
+            }
+            return readyEvents;
+        });
+        if (outboxEvents == null || outboxEvents.isEmpty()) {
+            return;
+        }
+
+        List<ListenableFuture<SendResult<String, Object>>> futures = new ArrayList<>();
+        for (OutboxEvent outboxEvent : outboxEvents) {
+            try {
+                futures.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getPayload()));
+            } catch (Exception exception) {
+                futures.add(null);
+            }
+        }
+        kafkaTemplate.flush();
+
+        // send-timeout-ms tính cho cả batch
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Integer> sentIds = new ArrayList<>();
+        List<OutboxEvent> failedEvents = new ArrayList<>();
+        for (int i = 0; i < outboxEvents.size(); i++) {
+            OutboxEvent outboxEvent = outboxEvents.get(i);
+            try {
+                if (futures.get(i) == null) {
+                    throw new IllegalStateException("Send outbox event failed");
+                }
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(outboxEvent.getId());
+            } catch (Exception exception) {
+                if (exception instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                int attempts = outboxEvent.getAttempts() + 1;
+                long backoff = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempts - 1, 20));
+                outboxEvent.setAttempts(attempts);
+                outboxEvent.setAvailableAt(new Date(System.currentTimeMillis() + backoff));
+                failedEvents.add(outboxEvent);
+                log.warn("Relay outbox event {} to {} failed, attempts {}", outboxEvent.getId(), outboxEvent.getTopic(), attempts, exception);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(sentIds);
+            }
+            for (OutboxEvent outboxEvent : failedEvents) {
+                outboxEventRepository.reschedule(outboxEvent.getId(), outboxEvent.getAttempts(), outboxEvent.getAvailableAt());
+            }
+        });
+    }
+}
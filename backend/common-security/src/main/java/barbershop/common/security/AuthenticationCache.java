@@ -0,0 +1,204 @@
+package barbershop.common.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Xác thực token tại chỗ bằng TokenVerifier (chữ ký, hạn, danh sách thu hồi), chỉ gọi user-service để lấy profile
+ * khi cache theo userId bị miss. user-service publish "user-revoked" khi logout / khoá tài khoản / đổi profile,
+ * mỗi instance một consumer group và đọc lại từ đầu topic khi khởi động để dựng lại danh sách thu hồi.
+ * Dùng chung cho các service xác thực bằng token của user-service, cấu hình đọc từ "<configPrefix>.auth-cache.*".
+ */
+public class AuthenticationCache<U> {
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationCache.class);
+
+    public static final String USER_REVOKED_TOPIC = "user-revoked";
+
+    // Load profile theo userId, trả về null nếu user không tồn tại
+    public interface UserLoader<U> {
+        U load(int userId) throws Exception;
+    }
+
+    public static class AuthenticationException extends Exception {
+        private final int status;
+
+        public AuthenticationException(String message, int status) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private final TokenVerifier tokenVerifier;
+    private final UserLoader<U> userLoader;
+    private final Cache<Integer, U> users;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Các lookup đang chạy theo userId, request đến sau chờ chung kết quả
+    private final ConcurrentHashMap<Integer, CompletableFuture<U>> pendingLookups = new ConcurrentHashMap<>();
+
+    // Tăng mỗi lần revoke: profile load bắt đầu trước đó sẽ không được ghi vào cache
+    private final AtomicLong revocationGeneration = new AtomicLong();
+
+    private RevocationReplayTracker revocationReplayTracker;
+    private KafkaMessageListenerContainer<Object, Object> listenerContainer;
+
+    public AuthenticationCache(TokenVerifier tokenVerifier, UserLoader<U> userLoader, PropertyResolver properties, String configPrefix) {
+        this.tokenVerifier = tokenVerifier;
+        this.userLoader = userLoader;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.getProperty(configPrefix + ".auth-cache.maximum-size", Long.class, 10000L))
+                .expireAfterWrite(properties.getProperty(configPrefix + ".auth-cache.expire-after-write-ms", Long.class, 30000L), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Bắt đầu đọc "user-revoked" từ đầu topic với consumer group "<groupIdPrefix>-<uuid>" riêng cho instance này.
+     */
+    public void start(ConsumerFactory<Object, Object> consumerFactory, String groupIdPrefix) {
+        revocationReplayTracker = new RevocationReplayTracker(USER_REVOKED_TOPIC);
+
+        ContainerProperties containerProperties = new ContainerProperties(USER_REVOKED_TOPIC);
+        containerProperties.setGroupId(groupIdPrefix + "-" + UUID.randomUUID());
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        containerProperties.setKafkaConsumerProperties(consumerProperties);
+        containerProperties.setMessageListener((MessageListener<Object, Object>) this::handleUserRevokedEvent);
+        containerProperties.setConsumerRebalanceListener(revocationReplayTracker);
+        // Idle event mỗi giây để kiểm tra position, kể cả khi topic rỗng / record cuối bị bỏ qua
+        containerProperties.setIdleEventInterval(1000L);
+        containerProperties.setIdleBeforeDataMultiplier(1.0);
+
+        listenerContainer = new KafkaMessageListenerContainer<>(consumerFactory, containerProperties);
+        listenerContainer.setBeanName(groupIdPrefix);
+        // Container không phải bean nên event chỉ đến đây, idle event được publish trên thread của consumer
+        listenerContainer.setApplicationEventPublisher(event -> {
+            if (event instanceof ListenerContainerIdleEvent) {
+                revocationReplayTracker.onIdle(((ListenerContainerIdleEvent) event).getConsumer());
+            }
+        });
+        listenerContainer.start();
+    }
+
+    public void stop() {
+        if (listenerContainer != null) {
+            listenerContainer.stop();
+        }
+    }
+
+    /**
+     * User của token: token được kiểm tra tại chỗ, profile lấy từ cache theo userId. Các request cùng user đang miss chỉ gọi user-service một lần.
+     */
+    public U getUser(String token) throws Exception {
+        // Danh sách thu hồi chưa đầy đủ ngay sau khi khởi động: từ chối thay vì chấp nhận token đã logout / bị khoá
+        if (revocationReplayTracker == null || !revocationReplayTracker.isCaughtUp()) {
+            throw new AuthenticationException("Service Unavailable", 503);
+        }
+
+        int userId;
+        try {
+            userId = tokenVerifier.verify(token).getId();
+        } catch (TokenVerifier.InvalidTokenException exception) {
+            log.warn("Reject token: {}", exception.getMessage());
+            throw new AuthenticationException("Unauthorized", 401);
+        }
+
+        U cached = users.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<U> lookup = new CompletableFuture<>();
+        CompletableFuture<U> pendingLookup = pendingLookups.putIfAbsent(userId, lookup);
+        if (pendingLookup != null) {
+            try {
+                return pendingLookup.get();
+            } catch (ExecutionException exception) {
+                if (exception.getCause() instanceof Exception) {
+                    throw (Exception) exception.getCause();
+                }
+                throw exception;
+            }
+        }
+
+        long generation = revocationGeneration.get();
+        try {
+            U user = userLoader.load(userId);
+            // User đã bị xoá: không cache kết quả âm
+            if (user == null) {
+                throw new AuthenticationException("Unauthorized", 401);
+            }
+            if (generation == revocationGeneration.get()) {
+                users.put(userId, user);
+            }
+            lookup.complete(user);
+            return user;
+        } catch (Exception exception) {
+            lookup.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            pendingLookups.remove(userId, lookup);
+        }
+    }
+
+    /**
+     * Xoá profile của user khỏi cache (logout, khoá tài khoản, đổi profile).
+     */
+    public void revoke(int userId) {
+        revocationGeneration.incrementAndGet();
+        users.invalidate(userId);
+    }
+
+    // Để service gắn metrics cho cache
+    public Cache<Integer, U> getUsers() {
+        return users;
+    }
+
+    private void handleUserRevokedEvent(ConsumerRecord<Object, Object> record) {
+        try {
+            // user-service gửi chuỗi JSON qua JsonSerializer nên value có thể là JSON string bọc JSON object
+            JsonNode event = objectMapper.readTree(String.valueOf(record.value()));
+            if (event.isTextual()) {
+                event = objectMapper.readTree(event.asText());
+            }
+            int userId = event.path("id").asInt();
+            long revokedAt = event.path("revokedAt").asLong();
+            log.info("Revoke user {} revokedAt {}", userId, revokedAt);
+            // Đổi profile / mở khoá không có revokedAt: token cũ vẫn hợp lệ, chỉ load lại profile
+            if (revokedAt > 0) {
+                tokenVerifier.revoke(userId, revokedAt);
+            }
+            revoke(userId);
+        } catch (Exception exception) {
+            log.error("Skip malformed user-revoked event at {}-{}", record.partition(), record.offset(), exception);
+        } finally {
+            revocationReplayTracker.onRecord(record.partition(), record.offset());
+        }
+    }
+}
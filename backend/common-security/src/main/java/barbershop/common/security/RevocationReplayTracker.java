@@ -0,0 +1,100 @@
+package barbershop.common.security;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Theo dõi việc đọc lại topic thu hồi token (từ offset đầu) khi instance khởi động.
+ * Trước khi consumer đọc tới end offset lúc được assign, danh sách thu hồi của TokenVerifier còn thiếu
+ * nên service phải từ chối token (fail closed) thay vì chấp nhận token đã logout / bị khoá.
+ * Điều kiện chính là position của consumer khi container idle (mọi record đã poll đều đã xử lý xong), nên record
+ * không deserialize được (error handler bỏ qua) hay bị retention xoá trước lần poll đầu cũng không làm kẹt.
+ * Các callback có tham số Consumer chạy trên thread của consumer.
+ */
+public class RevocationReplayTracker implements ConsumerAwareRebalanceListener {
+    private static final Logger log = LoggerFactory.getLogger(RevocationReplayTracker.class);
+
+    private final String topic;
+
+    // partition -> end offset (exclusive) lúc được assign lần đầu; null khi chưa được assign
+    private volatile Map<TopicPartition, Long> targets;
+
+    // partition -> offset lớn nhất listener đã xử lý, để thông qua sớm mà không chờ idle
+    private final ConcurrentHashMap<Integer, Long> consumedOffsets = new ConcurrentHashMap<>();
+
+    private volatile boolean caughtUp;
+
+    public RevocationReplayTracker(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (targets == null) {
+            targets = Map.copyOf(consumer.endOffsets(partitions));
+            log.info("Replay {} until offsets {}", topic, targets);
+        }
+    }
+
+    public void onRecord(int partition, long offset) {
+        consumedOffsets.merge(partition, offset, Math::max);
+    }
+
+    public void onIdle(Consumer<?, ?> consumer) {
+        if (caughtUp) {
+            return;
+        }
+        try {
+            Map<TopicPartition, Long> current = targets;
+            if (current == null) {
+                // Chưa được assign vì topic chưa được tạo: chưa có event thu hồi nào để đọc lại
+                List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+                if (consumer.assignment().isEmpty() && (partitions == null || partitions.isEmpty())) {
+                    markCaughtUp();
+                }
+                return;
+            }
+            for (Map.Entry<TopicPartition, Long> target : current.entrySet()) {
+                if (!consumer.assignment().contains(target.getKey()) || consumer.position(target.getKey()) < target.getValue()) {
+                    return;
+                }
+            }
+            markCaughtUp();
+        } catch (Exception exception) {
+            log.warn("Check replay position of {} failed", topic, exception);
+        }
+    }
+
+    public boolean isCaughtUp() {
+        if (caughtUp) {
+            return true;
+        }
+        Map<TopicPartition, Long> current = targets;
+        if (current == null) {
+            return false;
+        }
+        for (Map.Entry<TopicPartition, Long> target : current.entrySet()) {
+            if (consumedOffsets.getOrDefault(target.getKey().partition(), -1L) < target.getValue() - 1) {
+                return false;
+            }
+        }
+        markCaughtUp();
+        return true;
+    }
+
+    private void markCaughtUp() {
+        if (!caughtUp) {
+            caughtUp = true;
+            log.info("Replay {} caught up", topic);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package barbershop.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ký / kiểm tra token HS256 dạng base64(header).base64(payload).base64(signature) do user-service phát hành.
+ * Mac và buffer được giữ theo thread, header/payload được duyệt trực tiếp trên byte thay vì regex + ObjectMapper.
+ * user-service dùng để ký, các service khác dùng để xác thực token tại chỗ mà không cần gọi user-service.
+ */
+public class TokenVerifier {
+    public static final String HEADER = Base64.getEncoder()
+            .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private static final int MAC_LENGTH = 32;
+    private static final int SIGNATURE_LENGTH = 44;
+    private static final int MAX_TOKEN_LENGTH = 4096;
+    // Thứ tự trong CLAIM_KEYS cũng là vị trí trong mảng claims
+    private static final byte[][] CLAIM_KEYS = {
+            "id".getBytes(StandardCharsets.US_ASCII),
+            "iat".getBytes(StandardCharsets.US_ASCII),
+            "exp".getBytes(StandardCharsets.US_ASCII)
+    };
+    private static final long MISSING = Long.MIN_VALUE;
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final SecretKeySpec secretKey;
+    private final long maxTokenLifetimeMs;
+    private final ThreadLocal<Scratch> scratch;
+
+    // userId -> thời điểm bị thu hồi (ms), token có iat <= giá trị này bị từ chối.
+    // Entry quá maxTokenLifetimeMs được dọn vì mọi token phát hành trước đó đã hết hạn.
+    private final ConcurrentHashMap<Integer, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenVerifier(String secret, long maxTokenLifetimeMs) {
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.maxTokenLifetimeMs = maxTokenLifetimeMs;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(secretKey));
+    }
+
+    public static class Claims {
+        private final int id;
+        private final long iat;
+        private final long exp;
+
+        private Claims(int id, long iat, long exp) {
+            this.id = id;
+            this.iat = iat;
+            this.exp = exp;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public long getIat() {
+            return iat;
+        }
+
+        public long getExp() {
+            return exp;
+        }
+    }
+
+    public static class InvalidTokenException extends Exception {
+        public InvalidTokenException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    public String sign(String headerAndPayload) {
+        Scratch buffers = scratch.get();
+        byte[] data = headerAndPayload.getBytes(StandardCharsets.US_ASCII);
+        buffers.mac.update(data, 0, data.length);
+        int length = buffers.finishSignature();
+        return new String(buffers.signature, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    public Claims verify(String token) throws InvalidTokenException {
+        int length = token == null ? 0 : token.length();
+        if (length == 0 || length > MAX_TOKEN_LENGTH) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        // Chỉ chấp nhận đúng header đã phát hành (chặn alg khác / none)
+        if (firstDot != HEADER.length() || !token.startsWith(HEADER)) {
+            throw new InvalidTokenException("Unsupported token header");
+        }
+
+        Scratch buffers = scratch.get();
+        byte[] bytes = buffers.tokenBytes(length);
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c > 127) {
+                throw new InvalidTokenException("Malformed token");
+            }
+            bytes[i] = (byte) c;
+        }
+
+        buffers.mac.update(bytes, 0, secondDot);
+        int signatureLength = buffers.finishSignature();
+        if (length - secondDot - 1 != signatureLength
+                || !constantTimeEquals(buffers.signature, bytes, secondDot + 1, signatureLength)) {
+            throw new InvalidTokenException("Invalid signature");
+        }
+
+        int payloadLength = decodeBase64(bytes, firstDot + 1, secondDot, buffers);
+        long[] claims = buffers.claims;
+        if (!readClaims(buffers.payload, payloadLength, claims)) {
+            throw new InvalidTokenException("Malformed payload");
+        }
+        long id = claims[0];
+        long iat = claims[1];
+        long exp = claims[2];
+        if (id == MISSING || iat == MISSING || exp == MISSING || id <= 0 || id > Integer.MAX_VALUE) {
+            throw new InvalidTokenException("Malformed payload");
+        }
+        if (exp <= System.currentTimeMillis()) {
+            throw new InvalidTokenException("Token expired");
+        }
+        Long revokedAt = revokedBefore.get((int) id);
+        if (revokedAt != null && iat <= revokedAt) {
+            throw new InvalidTokenException("Token revoked");
+        }
+        return new Claims((int) id, iat, exp);
+    }
+
+    public void revoke(int userId, long revokedAt) {
+        revokedBefore.merge(userId, revokedAt, Math::max);
+        long expiredBefore = System.currentTimeMillis() - maxTokenLifetimeMs;
+        revokedBefore.values().removeIf(value -> value < expiredBefore);
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, byte[] actual, int offset, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= expected[i] ^ actual[offset + i];
+        }
+        return diff == 0;
+    }
+
+    // Decode base64 (có hoặc không padding) của bytes[from, to) vào buffers.payload, trả về số byte
+    private static int decodeBase64(byte[] bytes, int from, int to, Scratch buffers) throws InvalidTokenException {
+        int paddedTo = to;
+        while (to > from && bytes[to - 1] == '=') {
+            to--;
+        }
+        // Tối đa 2 ký tự '=' và chỉ khi đủ nhóm 4 ký tự; không padding thì nhóm cuối không thể chỉ có 1 ký tự
+        if (paddedTo - to > 2 || (paddedTo > to && (paddedTo - from) % 4 != 0) || (to - from) % 4 == 1) {
+            throw new InvalidTokenException("Malformed payload");
+        }
+        byte[] out = buffers.payloadBytes((to - from) * 3 / 4);
+        int length = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to; i++) {
+            int value = BASE64_VALUES[bytes[i]];
+            if (value < 0) {
+                throw new InvalidTokenException("Malformed payload");
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[length++] = (byte) (bits >> bitCount);
+            }
+        }
+        return length;
+    }
+
+    // Duyệt object JSON cấp trên cùng và đọc id / iat / exp (số nguyên) vào claims.
+    // Key nằm trong object / array lồng nhau hoặc trong chuỗi không được tính; key claim bị lặp hoặc có escape thì payload sai.
+    private static boolean readClaims(byte[] json, int length, long[] claims) {
+        Arrays.fill(claims, MISSING);
+        int p = skipWhitespace(json, 0, length);
+        if (p >= length || json[p] != '{') {
+            return false;
+        }
+        p = skipWhitespace(json, p + 1, length);
+        if (p < length && json[p] == '}') {
+            return skipWhitespace(json, p + 1, length) == length;
+        }
+        while (true) {
+            if (p >= length || json[p] != '"') {
+                return false;
+            }
+            int keyEnd = skipString(json, p, length);
+            if (keyEnd < 0) {
+                return false;
+            }
+            int claim = claimIndex(json, p + 1, keyEnd - 1);
+            if (claim == -2) {
+                return false;
+            }
+            p = skipWhitespace(json, keyEnd, length);
+            if (p >= length || json[p] != ':') {
+                return false;
+            }
+            p = skipWhitespace(json, p + 1, length);
+            if (claim >= 0) {
+                if (claims[claim] != MISSING) {
+                    return false;
+                }
+                boolean negative = p < length && json[p] == '-';
+                if (negative) {
+                    p++;
+                }
+                int start = p;
+                long value = 0;
+                while (p < length && json[p] >= '0' && json[p] <= '9') {
+                    if (p - start >= 18) {
+                        return false;
+                    }
+                    value = value * 10 + (json[p] - '0');
+                    p++;
+                }
+                if (p == start) {
+                    return false;
+                }
+                claims[claim] = negative ? -value : value;
+            } else {
+                int valueEnd = skipValue(json, p, length);
+                if (valueEnd <= p) {
+                    return false;
+                }
+                p = valueEnd;
+            }
+            p = skipWhitespace(json, p, length);
+            if (p >= length) {
+                return false;
+            }
+            if (json[p] == '}') {
+                return skipWhitespace(json, p + 1, length) == length;
+            }
+            if (json[p] != ',') {
+                return false;
+            }
+            p = skipWhitespace(json, p + 1, length);
+        }
+    }
+
+    // Vị trí của key trong CLAIM_KEYS, -1 nếu không phải claim, -2 nếu key có escape
+    private static int claimIndex(byte[] json, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (json[i] == '\\') {
+                return -2;
+            }
+        }
+        outer:
+        for (int claim = 0; claim < CLAIM_KEYS.length; claim++) {
+            byte[] key = CLAIM_KEYS[claim];
+            if (key.length != to - from) {
+                continue;
+            }
+            for (int j = 0; j < key.length; j++) {
+                if (json[from + j] != key[j]) {
+                    continue outer;
+                }
+            }
+            return claim;
+        }
+        return -1;
+    }
+
+    // json[p] là '"', trả về vị trí ngay sau dấu '"' đóng, -1 nếu chuỗi không đóng
+    private static int skipString(byte[] json, int p, int length) {
+        for (int i = p + 1; i < length; i++) {
+            if (json[i] == '\\') {
+                i++;
+            } else if (json[i] == '"') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Bỏ qua một value (chuỗi, số, literal, object / array lồng nhau), trả về vị trí ngay sau value, -1 nếu sai
+    private static int skipValue(byte[] json, int p, int length) {
+        int depth = 0;
+        while (p < length) {
+            byte c = json[p];
+            if (c == '"') {
+                p = skipString(json, p, length);
+                if (p < 0) {
+                    return -1;
+                }
+                if (depth == 0) {
+                    return p;
+                }
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0) {
+                    return p;
+                }
+                depth--;
+                if (depth == 0) {
+                    return p + 1;
+                }
+            } else if (depth == 0 && (c == ',' || c == ' ' || c == '\t' || c == '\n' || c == '\r')) {
+                return p;
+            }
+            p++;
+        }
+        return depth == 0 ? p : -1;
+    }
+
+    private static int skipWhitespace(byte[] json, int p, int length) {
+        while (p < length && (json[p] == ' ' || json[p] == '\t' || json[p] == '\n' || json[p] == '\r')) {
+            p++;
+        }
+        return p;
+    }
+
+    private static class Scratch {
+        private final Mac mac;
+        private final byte[] macOutput = new byte[MAC_LENGTH];
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private byte[] token = new byte[512];
+        private byte[] payload = new byte[256];
+        private final long[] claims = new long[CLAIM_KEYS.length];
+
+        private Scratch(SecretKeySpec secretKey) {
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(secretKey);
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        // doFinal reset Mac về trạng thái đã init, dùng lại được cho lần sau
+        private int finishSignature() {
+            try {
+                mac.doFinal(macOutput, 0);
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(exception);
+            }
+            return Base64.getEncoder().encode(macOutput, signature);
+        }
+
+        private byte[] tokenBytes(int length) {
+            if (token.length < length) {
+                token = new byte[Math.max(length, token.length * 2)];
+            }
+            return token;
+        }
+
+        private byte[] payloadBytes(int length) {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package barbershop.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenVerifierTest {
+    private static final long LIFETIME_MS = 86400000;
+
+    private final TokenVerifier tokenVerifier = new TokenVerifier("secret", LIFETIME_MS);
+
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    void signAndVerifyRoundTrip() throws Exception {
+        TokenVerifier.Claims claims = tokenVerifier.verify(token(payload(7, now, now + LIFETIME_MS)));
+
+        assertEquals(7, claims.getId());
+        assertEquals(now, claims.getIat());
+        assertEquals(now + LIFETIME_MS, claims.getExp());
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = token(payload(7, now, now + LIFETIME_MS));
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + encode(payload(8, now, now + LIFETIME_MS)) + "." + parts[2];
+
+        assertRejected(tampered, "Invalid signature");
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = token(payload(7, now, now + LIFETIME_MS));
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertRejected(tampered, "Invalid signature");
+        assertRejected(token.substring(0, token.length() - 1), "Invalid signature");
+    }
+
+    @Test
+    void rejectsSignatureFromOtherSecret() {
+        TokenVerifier other = new TokenVerifier("other-secret", LIFETIME_MS);
+        String headerAndPayload = TokenVerifier.HEADER + "." + encode(payload(7, now, now + LIFETIME_MS));
+
+        assertRejected(headerAndPayload + "." + other.sign(headerAndPayload), "Invalid signature");
+    }
+
+    @Test
+    void rejectsOtherHeaderOrAlg() {
+        String payload = encode(payload(7, now, now + LIFETIME_MS));
+
+        assertRejected(token(encode("{\"alg\":\"none\",\"typ\":\"JWT\"}"), payload), "Unsupported token header");
+        assertRejected(token(encode("{\"alg\":\"HS512\",\"typ\":\"JWT\"}"), payload), "Unsupported token header");
+        assertRejected(token(encode("{\"typ\":\"JWT\",\"alg\":\"HS256\"}"), payload), "Unsupported token header");
+        assertRejected(token(encode("{\"alg\":\"HS256\", \"typ\":\"JWT\"}"), payload), "Unsupported token header");
+        // Token alg "none" không có chữ ký
+        assertRejected(encode("{\"alg\":\"none\",\"typ\":\"JWT\"}") + "." + payload + ".", "Unsupported token header");
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        assertRejected(token(payload(7, now - LIFETIME_MS, now - 1)), "Token expired");
+        assertRejected(token(payload(7, now - LIFETIME_MS, now - LIFETIME_MS)), "Token expired");
+    }
+
+    @Test
+    void rejectsTokenIssuedAtOrBeforeRevocation() throws Exception {
+        String issuedBefore = token(payload(7, now - 1000, now + LIFETIME_MS));
+        String issuedAt = token(payload(7, now, now + LIFETIME_MS));
+        String issuedAfter = token(payload(7, now + 1, now + LIFETIME_MS));
+        String otherUser = token(payload(8, now - 1000, now + LIFETIME_MS));
+
+        tokenVerifier.revoke(7, now);
+
+        assertRejected(issuedBefore, "Token revoked");
+        assertRejected(issuedAt, "Token revoked");
+        assertEquals(7, tokenVerifier.verify(issuedAfter).getId());
+        assertEquals(8, tokenVerifier.verify(otherUser).getId());
+
+        // Revoke cũ hơn không ghi đè mốc mới hơn
+        tokenVerifier.revoke(7, now - 5000);
+        assertRejected(issuedAt, "Token revoked");
+    }
+
+    @Test
+    void acceptsPaddedAndUnpaddedPayload() throws Exception {
+        String json = payload(7, now, now + LIFETIME_MS);
+        for (int padding = 1; padding <= 2; padding++) {
+            // Thêm khoảng trắng cuối để base64 cần đúng `padding` ký tự '='
+            while (json.length() % 3 != 3 - padding) {
+                json += " ";
+            }
+            String padded = encode(json);
+            assertTrue(padded.endsWith("=".repeat(padding)));
+            String unpadded = padded.substring(0, padded.length() - padding);
+
+            assertEquals(7, tokenVerifier.verify(token(TokenVerifier.HEADER, padded)).getId());
+            assertEquals(7, tokenVerifier.verify(token(TokenVerifier.HEADER, unpadded)).getId());
+            json += " ";
+        }
+    }
+
+    @Test
+    void rejectsMalformedBase64() {
+        String json = payload(7, now, now + LIFETIME_MS);
+        while (json.length() % 3 != 2) {
+            json += " ";
+        }
+        String padded = encode(json);
+
+        assertRejected(token(TokenVerifier.HEADER, padded + "=="), "Malformed payload");
+        assertRejected(token(TokenVerifier.HEADER, padded.substring(0, padded.length() - 2) + "="), "Malformed payload");
+        assertRejected(token(TokenVerifier.HEADER, padded.substring(0, padded.length() - 3)), "Malformed payload");
+        // Ký tự base64url không thuộc bảng base64 chuẩn
+        assertRejected(token(TokenVerifier.HEADER, padded.substring(0, 4) + "-" + padded.substring(5)), "Malformed payload");
+    }
+
+    @Test
+    void rejectsDuplicateClaim() {
+        assertRejected(token("{\"id\":7,\"id\":8,\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS) + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":7,\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS) + ",\"exp\":" + (now + LIFETIME_MS) + "}"), "Malformed payload");
+        // Key claim viết bằng escape được parser JSON khác hiểu là "id"
+        assertRejected(token("{\"id\":7,\"\\u0069d\":8,\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS) + "}"), "Malformed payload");
+    }
+
+    @Test
+    void ignoresNestedOrQuotedIdKey() throws Exception {
+        String claims = "\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS);
+
+        assertEquals(7, tokenVerifier.verify(token("{\"user\":{\"id\":8},\"id\":7," + claims + "}")).getId());
+        assertEquals(7, tokenVerifier.verify(token("{\"roles\":[{\"id\":8},\"id\"],\"id\":7," + claims + "}")).getId());
+        assertEquals(7, tokenVerifier.verify(token("{\"name\":\"\\\"id\\\":8\",\"id\":7," + claims + "}")).getId());
+        assertRejected(token("{\"user\":{\"id\":8}," + claims + "}"), "Malformed payload");
+        assertRejected(token("{\"name\":\"\\\"id\\\":8\"," + claims + "}"), "Malformed payload");
+    }
+
+    @Test
+    void rejectsMalformedClaims() {
+        String claims = "\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS);
+
+        assertRejected(token("{\"id\":\"7\"," + claims + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":7.5," + claims + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":0," + claims + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":-7," + claims + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":2147483648," + claims + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":7,\"iat\":1234567890123456789,\"exp\":" + (now + LIFETIME_MS) + "}"), "Malformed payload");
+        assertRejected(token("{\"id\":7," + claims + "} trailing"), "Malformed payload");
+        assertRejected(token("{\"id\":7," + claims), "Malformed payload");
+        assertRejected(token("[{\"id\":7," + claims + "}]"), "Malformed payload");
+        assertRejected(token("{\"id\":7}"), "Malformed payload");
+    }
+
+    @Test
+    void rejectsOversizedToken() throws Exception {
+        String claims = "\"id\":7,\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS);
+        // Payload lớn nhưng chưa quá giới hạn: buffer theo thread được nới ra
+        String large = token("{\"pad\":\"" + "x".repeat(2500) + "\"," + claims + "}");
+        assertTrue(large.length() <= 4096);
+        assertEquals(7, tokenVerifier.verify(large).getId());
+
+        String oversized = token("{\"pad\":\"" + "x".repeat(3200) + "\"," + claims + "}");
+        assertTrue(oversized.length() > 4096);
+        assertRejected(oversized, "Malformed token");
+    }
+
+    @Test
+    void handlesNonAsciiInput() throws Exception {
+        String token = token(payload(7, now, now + LIFETIME_MS));
+        int index = TokenVerifier.HEADER.length() + 3;
+
+        assertRejected(token.substring(0, index) + "é" + token.substring(index + 1), "Malformed token");
+        assertRejected(token + "\u0800", "Malformed token");
+        // Ký tự không phải ASCII trong payload (UTF-8 rồi base64) vẫn hợp lệ
+        assertEquals(7, tokenVerifier.verify(token("{\"name\":\"Nguyễn\",\"id\":7,\"iat\":" + now + ",\"exp\":" + (now + LIFETIME_MS) + "}")).getId());
+    }
+
+    @Test
+    void rejectsMalformedTokenShape() {
+        String token = token(payload(7, now, now + LIFETIME_MS));
+
+        assertRejected(null, "Malformed token");
+        assertRejected("", "Malformed token");
+        assertRejected("abc", "Malformed token");
+        assertRejected(token.substring(0, token.lastIndexOf('.')), "Malformed token");
+        assertRejected(token + ".extra", "Malformed token");
+    }
+
+    private static String payload(long id, long iat, long exp) {
+        return "{\"id\":" + id + ",\"iat\":" + iat + ",\"exp\":" + exp + "}";
+    }
+
+    private static String encode(String json) {
+        return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String token(String json) {
+        return token(TokenVerifier.HEADER, encode(json));
+    }
+
+    private String token(String header, String payload) {
+        String headerAndPayload = header + "." + payload;
+        return headerAndPayload + "." + tokenVerifier.sign(headerAndPayload);
+    }
+
+    private void assertRejected(String token, String message) {
+        TokenVerifier.InvalidTokenException exception = assertThrows(TokenVerifier.InvalidTokenException.class, () -> tokenVerifier.verify(token));
+        assertEquals(message, exception.getMessage());
+    }
+}
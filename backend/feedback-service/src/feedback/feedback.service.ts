@@ -77,12 +77,9 @@ export class FeedbackService {
     const userId = query['user']?.id;
     let orderIds: number[] = [];
     if (userId) {
-      orderIds =
-        (
-          await this.orderGrpcClientService.getListOrderByUserId({
-            userId,
-          })
-        )?.orderIds || [];
+      orderIds = await this.orderGrpcClientService.streamOrderIdsByUserId({
+        userId,
+      });
     }
 
     this.feedbackRepository.resetQueryBuilder('feedback');
@@ -23,6 +23,19 @@ export interface GetListHairStyleResponse {
   hairStyles: HairStyle[];
 }
 
+/** cursor: id hair style cuối của trang trước (0 là trang đầu) */
+export interface GetListHairStylePageRequest {
+  ids: number[];
+  cursor: number;
+  limit: number;
+}
+
+/** nextCursor = 0 khi đã hết */
+export interface GetListHairStylePageResponse {
+  hairStyles: HairStyle[];
+  nextCursor: number;
+}
+
 export interface GetListUserFeedbackByOrderIdsRequest {
   orderIds: number[];
 }
@@ -39,6 +52,19 @@ export interface UserFeedback {
   hairColor: string;
 }
 
+/** cursor: order id cuối của trang trước (0 là trang đầu) */
+export interface GetListUserFeedbackByOrderIdsPageRequest {
+  orderIds: number[];
+  cursor: number;
+  limit: number;
+}
+
+/** nextCursor = 0 khi đã hết */
+export interface GetListUserFeedbackByOrderIdsPageResponse {
+  userFeedbacks: UserFeedback[];
+  nextCursor: number;
+}
+
 export interface GetListOrderIdByUserIdRequest {
   userId: number;
 }
@@ -82,6 +108,16 @@ export interface OrderServiceClient {
 
   getListOrderByUserId(request: GetListOrderIdByUserIdRequest): Observable<GetListOrderIdByUserIdResponse>;
 
+  getListHairStylePage(request: GetListHairStylePageRequest): Observable<GetListHairStylePageResponse>;
+
+  getListUserFeedbackByOrderIdsPage(
+    request: GetListUserFeedbackByOrderIdsPageRequest,
+  ): Observable<GetListUserFeedbackByOrderIdsPageResponse>;
+
+  /** Trả order id theo thứ tự tăng dần, mỗi message một chunk */
+
+  streamOrderIdsByUserId(request: GetListOrderIdByUserIdRequest): Observable<GetListOrderIdByUserIdResponse>;
+
   checkOrderMatchWithUser(request: CheckOrderMatchWithUserRequest): Observable<CheckOrderMatchWithUserResponse>;
 
   getOrderById(request: GetOrderByIdRequest): Observable<GetOrderByIdResponse>;
@@ -106,6 +142,21 @@ export interface OrderServiceController {
     | Observable<GetListOrderIdByUserIdResponse>
     | GetListOrderIdByUserIdResponse;
 
+  getListHairStylePage(
+    request: GetListHairStylePageRequest,
+  ): Promise<GetListHairStylePageResponse> | Observable<GetListHairStylePageResponse> | GetListHairStylePageResponse;
+
+  getListUserFeedbackByOrderIdsPage(
+    request: GetListUserFeedbackByOrderIdsPageRequest,
+  ):
+    | Promise<GetListUserFeedbackByOrderIdsPageResponse>
+    | Observable<GetListUserFeedbackByOrderIdsPageResponse>
+    | GetListUserFeedbackByOrderIdsPageResponse;
+
+  /** Trả order id theo thứ tự tăng dần, mỗi message một chunk */
+
+  streamOrderIdsByUserId(request: GetListOrderIdByUserIdRequest): Observable<GetListOrderIdByUserIdResponse>;
+
   checkOrderMatchWithUser(
     request: CheckOrderMatchWithUserRequest,
   ):
@@ -124,6 +175,9 @@ export function OrderServiceControllerMethods() {
       "getListHairStyle",
       "getListUserFeedbackByOrderIds",
       "getListOrderByUserId",
+      "getListHairStylePage",
+      "getListUserFeedbackByOrderIdsPage",
+      "streamOrderIdsByUserId",
       "checkOrderMatchWithUser",
       "getOrderById",
     ];
@@ -10,7 +10,7 @@ import {
 } from '@grpc/protos/order/order';
 import { Inject, Injectable, OnModuleInit } from '@nestjs/common';
 import { ClientGrpc, RpcException } from '@nestjs/microservices';
-import { catchError, firstValueFrom, throwError } from 'rxjs';
+import { catchError, firstValueFrom, reduce, throwError } from 'rxjs';
 
 @Injectable()
 export class OrderGrpcClientService implements OnModuleInit {
@@ -50,6 +50,19 @@ export class OrderGrpcClientService implements OnModuleInit {
     );
   }
 
+  // Gom các chunk của server stream thành một mảng order id
+  streamOrderIdsByUserId(request: GetListOrderIdByUserIdRequest) {
+    return firstValueFrom(
+      this.client.streamOrderIdsByUserId(request).pipe(
+        reduce(
+          (orderIds: number[], chunk) => orderIds.concat(chunk.orderIds || []),
+          [],
+        ),
+        catchError((error) => throwError(() => new RpcException(error))),
+      ),
+    );
+  }
+
   checkOrderMatchWithUser(request: CheckOrderMatchWithUserRequest) {
     return firstValueFrom(
       this.client
@@ -1,8 +1,10 @@
 package barbershop.hair_color_service;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class })
 public class HairColorServiceApplication {
@@ -10,4 +12,9 @@ public class HairColorServiceApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(HairColorServiceApplication.class, args);
 	}
+
+	@Bean
+	NewTopic hairColorUpdated() {
+		return new NewTopic("hair-color-updated", 1, (short) 1);
+	}
 }
@@ -1,15 +1,14 @@
 package barbershop.hair_color_service.interceptors;
 
 import barbershop.hair_color_service.exception.HttpException;
+import barbershop.hair_color_service.services.AuthenticationCacheService;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import lombok.extern.slf4j.Slf4j;
-import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-import user.CheckAuthenRequest;
-import user.CheckAuthenResponse;
-import user.UserServiceGrpc;
+import user.User;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -19,8 +18,8 @@ import java.util.Map;
 @Slf4j
 @Component
 public class AdminCheckInterceptor implements HandlerInterceptor {
-    @GrpcClient("user-grpc-server")
-    private UserServiceGrpc.UserServiceBlockingStub userServiceBlockingStub;
+    @Autowired
+    private AuthenticationCacheService authenticationCacheService;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -39,13 +38,9 @@ public class AdminCheckInterceptor implements HandlerInterceptor {
         }
 
         String token = authorizationHeader.split("\\s+")[1];
-        CheckAuthenResponse checkAuthenResponse = null;
+        User user = null;
         try {
-            checkAuthenResponse = userServiceBlockingStub.checkAuthen(
-                    CheckAuthenRequest.newBuilder()
-                            .setToken(token)
-                            .build()
-            );
+            user = authenticationCacheService.getUser(token);
         } catch (Exception e) {
             log.error("ERROR", e);
             if (
@@ -57,19 +52,19 @@ public class AdminCheckInterceptor implements HandlerInterceptor {
             throw e;
         }
 
-        if (!checkAuthenResponse.getUser().getRole().equalsIgnoreCase("ADMIN")) {
+        if (!user.getRole().equalsIgnoreCase("ADMIN")) {
             throw new HttpException("Unauthorized", 401);
         }
 
         Map<String, Object> userMap = new LinkedHashMap<>();
-        userMap.put("id", checkAuthenResponse.getUser().getId());
-        userMap.put("username", checkAuthenResponse.getUser().getUsername());
-        userMap.put("email", checkAuthenResponse.getUser().getEmail());
-        userMap.put("avatar", checkAuthenResponse.getUser().getAvatar());
-        userMap.put("address", checkAuthenResponse.getUser().getAddress());
-        userMap.put("phone", checkAuthenResponse.getUser().getPhone());
-        userMap.put("role", checkAuthenResponse.getUser().getRole());
-        userMap.put("gender", checkAuthenResponse.getUser().getGender());
+        userMap.put("id", user.getId());
+        userMap.put("username", user.getUsername());
+        userMap.put("email", user.getEmail());
+        userMap.put("avatar", user.getAvatar());
+        userMap.put("address", user.getAddress());
+        userMap.put("phone", user.getPhone());
+        userMap.put("role", user.getRole());
+        userMap.put("gender", user.getGender());
 
         request.setAttribute("user", userMap);
         return true;
@@ -18,17 +18,22 @@ import barbershop.hair_color_service.repositories.ColorImageRepository;
 import barbershop.hair_color_service.repositories.HairColorRepository;
 import barbershop.hair_color_service.services.HairColorService;
 import barbershop.hair_color_service.services.S3StorageService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class HairColorServiceImpl implements HairColorService {
     @Autowired
@@ -52,6 +57,9 @@ public class HairColorServiceImpl implements HairColorService {
     @Autowired
     private S3StorageService s3StorageService;
 
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
     @Override
     public ResponseSuccess seedData(String username, String password) throws Exception {
         if (username == null || !username.equals(mysqlUsername) ||
@@ -283,7 +291,24 @@ public class HairColorServiceImpl implements HairColorService {
                     .build();
         }
 
-        return saveHairColor(saveHairColorRequest, id);
+        BaseResponse baseResponse = saveHairColor(saveHairColorRequest, id);
+        publishHairColorUpdatedEvent(id);
+        return baseResponse;
+    }
+
+    // order-service cache giá hair color, báo cho nó xoá entry sau khi update đã commit
+    private void publishHairColorUpdatedEvent(int id) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Gửi lỗi thì order-service chỉ còn dựa vào TTL của cache, cần log để biết
+                kafkaTemplate.send("hair-color-updated", Map.of("id", id)).addCallback(
+                        result -> {
+                        },
+                        exception -> log.error("Publish hair-color-updated {} failed", id, exception)
+                );
+            }
+        });
     }
 
     @Transactional
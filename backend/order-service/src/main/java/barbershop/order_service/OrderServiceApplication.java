@@ -1,12 +1,22 @@
 package barbershop.order_service;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import barbershop.common.outbox.OutboxEvent;
+import barbershop.common.outbox.OutboxEventRepository;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication(exclude = {SecurityAutoConfiguration.class })
+@EnableScheduling
+@SpringBootApplication(exclude = {SecurityAutoConfiguration.class, ManagementWebSecurityAutoConfiguration.class })
+// Entity / repository outbox nằm ở module common-outbox, ngoài package của service
+@EntityScan(basePackageClasses = {OrderServiceApplication.class, OutboxEvent.class})
+@EnableJpaRepositories(basePackageClasses = {OrderServiceApplication.class, OutboxEventRepository.class})
 public class OrderServiceApplication {
 
 	public static void main(String[] args) {
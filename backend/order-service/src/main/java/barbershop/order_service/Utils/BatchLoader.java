@@ -0,0 +1,167 @@
+package barbershop.order_service.Utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Gom key từ các request đồng thời trong một cửa sổ ngắn (hoặc tới maxBatchSize) thành một RPC batch.
+// batchFunction phải tự đặt deadline cho RPC; executor nên dùng AbortPolicy để RPC không bao giờ chạy trên thread của scheduler
+public class BatchLoader<V> {
+    private final Function<List<Integer>, List<V>> batchFunction;
+    private final ToIntFunction<V> keyFunction;
+    private final int maxBatchSize;
+    private final long maxWaitMs;
+    private final long loadTimeoutMs;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer waitTimer;
+
+    private final Object lock = new Object();
+    private List<PendingKey<V>> pending = new ArrayList<>();
+
+    public BatchLoader(
+            String name,
+            Function<List<Integer>, List<V>> batchFunction,
+            ToIntFunction<V> keyFunction,
+            int maxBatchSize,
+            long maxWaitMs,
+            long loadTimeoutMs,
+            ScheduledExecutorService scheduler,
+            Executor executor,
+            MeterRegistry meterRegistry) {
+        this.batchFunction = batchFunction;
+        this.keyFunction = keyFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMs = maxWaitMs;
+        this.loadTimeoutMs = loadTimeoutMs;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.batchSizeSummary = DistributionSummary.builder("batch.loader.batch.size")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("batch.loader.wait")
+                .tag("loader", name)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<V> load(int key) {
+        PendingKey<V> pendingKey = new PendingKey<>(key);
+        List<PendingKey<V>> batch = null;
+        synchronized (lock) {
+            pending.add(pendingKey);
+            if (pending.size() == 1) {
+                List<PendingKey<V>> window = pending;
+                scheduler.schedule(() -> flush(window), maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return pendingKey.future;
+    }
+
+    // Chờ kết quả của nhiều key (tổng cộng tối đa loadTimeoutMs), bỏ qua key không tồn tại ở service đích
+    public List<V> loadAll(Collection<Integer> keys) {
+        List<CompletableFuture<V>> futures = new ArrayList<>();
+        for (Integer key : new LinkedHashSet<>(keys)) {
+            futures.add(load(key));
+        }
+
+        List<V> values = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(loadTimeoutMs);
+        try {
+            for (CompletableFuture<V> future : futures) {
+                V value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+        } catch (TimeoutException exception) {
+            throw new CompletionException(exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new CompletionException(exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(exception);
+        }
+        return values;
+    }
+
+    private void flush(List<PendingKey<V>> window) {
+        synchronized (lock) {
+            // Batch đã được gửi do đủ maxBatchSize
+            if (pending != window) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        dispatch(window);
+    }
+
+    private void dispatch(List<PendingKey<V>> batch) {
+        long now = System.nanoTime();
+        waitTimer.record(now - batch.get(0).enqueuedAt, TimeUnit.NANOSECONDS);
+
+        try {
+            executor.execute(() -> loadBatch(batch));
+        } catch (RejectedExecutionException exception) {
+            // Executor quá tải: fail cả batch thay vì chạy RPC trên thread gọi (có thể là scheduler)
+            for (PendingKey<V> pendingKey : batch) {
+                pendingKey.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    private void loadBatch(List<PendingKey<V>> batch) {
+        Set<Integer> keys = new LinkedHashSet<>();
+        for (PendingKey<V> pendingKey : batch) {
+            keys.add(pendingKey.key);
+        }
+        batchSizeSummary.record(keys.size());
+
+        try {
+            IntIndex<V> index = IntIndex.of(batchFunction.apply(new ArrayList<>(keys)), keyFunction);
+            for (PendingKey<V> pendingKey : batch) {
+                pendingKey.future.complete(index.get(pendingKey.key));
+            }
+        } catch (Exception exception) {
+            for (PendingKey<V> pendingKey : batch) {
+                pendingKey.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    private static class PendingKey<V> {
+        private final int key;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private PendingKey(int key) {
+            this.key = key;
+        }
+    }
+}
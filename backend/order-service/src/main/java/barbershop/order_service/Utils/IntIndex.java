@@ -0,0 +1,63 @@
+package barbershop.order_service.Utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// Map int -> V dùng open addressing trên mảng int, tránh boxing key khi join theo id (key là id > 0)
+public class IntIndex<V> {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+    private int size;
+
+    private IntIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    public static <V> IntIndex<V> of(List<V> values, ToIntFunction<V> keyFunction) {
+        IntIndex<V> index = new IntIndex<>(values.size());
+        for (V value : values) {
+            index.putIfAbsent(keyFunction.applyAsInt(value), value);
+        }
+        return index;
+    }
+
+    private void putIfAbsent(int key, V value) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[slot(key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Trả về slot chứa key, hoặc slot trống đầu tiên trên chuỗi probe
+    private int slot(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
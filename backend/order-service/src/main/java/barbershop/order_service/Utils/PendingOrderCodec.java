@@ -0,0 +1,113 @@
+package barbershop.order_service.Utils;
+
+import barber.Barber;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.util.JsonFormat;
+import hairColor.HairColor;
+import hairStyle.HairStyle;
+import pendingOrder.PendingOrder;
+import user.User;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PendingOrderCodec {
+    public static final byte VERSION = 1;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static byte[] encode(PendingOrder pendingOrder) {
+        byte[] body = pendingOrder.toByteArray();
+        byte[] value = new byte[body.length + 1];
+        value[0] = VERSION;
+        System.arraycopy(body, 0, value, 1, body.length);
+        return value;
+    }
+
+    public static PendingOrder decode(byte[] value) throws IOException {
+        if (value == null || value.length == 0) {
+            throw new IllegalArgumentException("Pending order not found");
+        }
+        if (value[0] == VERSION) {
+            return PendingOrder.parser().parseFrom(value, 1, value.length - 1);
+        }
+        // Value JSON ghi trước khi đổi sang binary (còn trong TTL 30 phút lúc deploy)
+        if (value[0] == '{') {
+            JsonNode json = OBJECT_MAPPER.readTree(value);
+            // JSON cũ lưu ảnh barber ở key "avatar" (như toBarberMap), field trong proto là "img"
+            JsonNode barber = json.path("barber");
+            if (barber.isObject() && barber.has("avatar") && !barber.has("img")) {
+                ((ObjectNode) barber).set("img", ((ObjectNode) barber).remove("avatar"));
+            }
+            PendingOrder.Builder builder = PendingOrder.newBuilder();
+            JsonFormat.parser().ignoringUnknownFields().merge(json.toString(), builder);
+            return builder.build();
+        }
+        throw new IllegalArgumentException("Unsupported pending order version: " + value[0]);
+    }
+
+    // Các hàm dưới giữ nguyên format JSON snapshot trong bảng orders và event gửi mail
+    public static Map<String, Object> toUserMap(User user) {
+        Map<String, Object> userMap = new LinkedHashMap<>();
+        userMap.put("id", user.getId());
+        userMap.put("username", user.getUsername());
+        userMap.put("email", user.getEmail());
+        userMap.put("avatar", user.getAvatar());
+        userMap.put("address", user.getAddress());
+        userMap.put("phone", user.getPhone());
+        userMap.put("role", user.getRole());
+        userMap.put("gender", user.getGender());
+        return userMap;
+    }
+
+    public static Map<String, Object> toBarberMap(Barber barber) {
+        Map<String, Object> barberMap = new LinkedHashMap<>();
+        barberMap.put("id", barber.getId());
+        barberMap.put("name", barber.getName());
+        barberMap.put("avatar", barber.getImg());
+        barberMap.put("active", barber.getActive());
+        return barberMap;
+    }
+
+    public static Map<String, Object> toHairStyleMap(HairStyle hairStyle) {
+        Map<String, Object> hairStyleMap = new LinkedHashMap<>();
+        hairStyleMap.put("id", hairStyle.getId());
+        hairStyleMap.put("name", hairStyle.getName());
+        hairStyleMap.put("price", hairStyle.getPrice());
+        hairStyleMap.put("active", hairStyle.getActive());
+        // Luôn có discount (mặc định unit "", value 0), template mail đọc discount.value
+        Map<String, Object> discountMap = new LinkedHashMap<>();
+        discountMap.put("unit", hairStyle.getDiscount().getUnit());
+        discountMap.put("value", hairStyle.getDiscount().getValue());
+        hairStyleMap.put("discount", discountMap);
+        return hairStyleMap;
+    }
+
+    public static Map<String, Object> toHairColorMap(HairColor hairColor) {
+        Map<String, Object> hairColorMap = new LinkedHashMap<>();
+        hairColorMap.put("id", hairColor.getId());
+        hairColorMap.put("color", hairColor.getColor());
+        hairColorMap.put("price", hairColor.getPrice());
+        hairColorMap.put("active", hairColor.getActive());
+        hairColorMap.put("colorCode", hairColor.getColorCode());
+        return hairColorMap;
+    }
+
+    public static Map<String, Object> toOrderMap(PendingOrder pendingOrder) {
+        Map<String, Object> orderMap = new LinkedHashMap<>();
+        orderMap.put("user", toUserMap(pendingOrder.getUser()));
+        orderMap.put("schedule", pendingOrder.getSchedule());
+        orderMap.put("cutted", false);
+        orderMap.put("barber", toBarberMap(pendingOrder.getBarber()));
+        orderMap.put("hairStyle", toHairStyleMap(pendingOrder.getHairStyle()));
+        orderMap.put("hairColor", pendingOrder.hasHairColor() ? toHairColorMap(pendingOrder.getHairColor()) : null);
+        orderMap.put("orderTime", pendingOrder.getOrderTime());
+        orderMap.put("amount", pendingOrder.getAmount());
+        orderMap.put("status", "Success");
+        orderMap.put("paymentType", pendingOrder.getPaymentType());
+        return orderMap;
+    }
+}
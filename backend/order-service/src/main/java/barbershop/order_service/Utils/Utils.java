@@ -2,12 +2,6 @@ package barbershop.order_service.Utils;
 
 import lombok.extern.slf4j.Slf4j;
 
-import javax.servlet.http.HttpServletRequest;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,15 +20,6 @@ public class Utils {
         return s.substring(0, 1).toUpperCase() + s.substring(1).toLowerCase();
     }
 
-    public static String readJsonBody(HttpServletRequest request) throws IOException {
-        try (
-            InputStream inputStream = request.getInputStream();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
-        ) {
-            return reader.lines().collect(java.util.stream.Collectors.joining(System.lineSeparator()));
-        }
-    }
-
     public static Date parseDate(String input, String format, String timezone) {
         try {
             // Định dạng ngày tháng theo chuỗi nhập vào
@@ -100,6 +85,24 @@ public class Utils {
         return times;
     }
 
+    public static int getTimeSlotIndex(String time) {
+        return generateTimeSlots().indexOf(time);
+    }
+
+    // Vị trí slot 30 phút (08:00 -> 0, 20:00 -> 24) của một thời điểm theo múi giờ, -1 nếu ngoài giờ làm việc
+    public static int getTimeSlotIndex(Date date, String timezone) {
+        ZonedDateTime zonedDateTime = date.toInstant().atZone(ZoneId.of(timezone));
+        int index = (zonedDateTime.getHour() - 8) * 2 + zonedDateTime.getMinute() / 30;
+        if (index < 0 || index >= generateTimeSlots().size()) {
+            return -1;
+        }
+        return index;
+    }
+
+    public static int toEpochDay(Date date, String timezone) {
+        return (int) date.toInstant().atZone(ZoneId.of(timezone)).toLocalDate().toEpochDay();
+    }
+
     public static String toDateStringWithFormatAndTimezone(Date date, String format, String timezone) {
         SimpleDateFormat sdf = new SimpleDateFormat(format);
         sdf.setTimeZone(TimeZone.getTimeZone(timezone));
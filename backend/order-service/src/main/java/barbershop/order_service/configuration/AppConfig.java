@@ -1,16 +1,36 @@
 package barbershop.order_service.configuration;
 
+import barbershop.common.outbox.OutboxEventRepository;
+import barbershop.common.outbox.OutboxService;
+import barbershop.common.outbox.OutboxServiceImpl;
+import barbershop.common.security.TokenVerifier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.converter.BatchMessagingMessageConverter;
 import org.springframework.kafka.support.converter.JsonMessageConverter;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class AppConfig implements WebMvcConfigurer {
     @Bean
@@ -31,6 +51,43 @@ public class AppConfig implements WebMvcConfigurer {
         };
     }
 
+    // Executor giới hạn cho callback của gRPC future stub
+    @Bean(name = "grpcClientExecutor", destroyMethod = "shutdown")
+    public ExecutorService grpcClientExecutor(
+            @Value("${order.grpc.executor.pool-size:16}") int poolSize,
+            @Value("${order.grpc.executor.queue-capacity:256}") int queueCapacity) {
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    // Chạy RPC batch của BatchLoader. AbortPolicy: khi đầy queue thì fail batch,
+    // không chạy RPC blocking trên thread của batchLoaderScheduler
+    @Bean(name = "batchLoaderExecutor", destroyMethod = "shutdown")
+    public ExecutorService batchLoaderExecutor(
+            @Value("${order.batch-loader.executor.pool-size:8}") int poolSize,
+            @Value("${order.batch-loader.executor.queue-capacity:256}") int queueCapacity) {
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    // Timer đóng cửa sổ gom batch của BatchLoader
+    @Bean(name = "batchLoaderScheduler", destroyMethod = "shutdown")
+    public ScheduledExecutorService batchLoaderScheduler() {
+        return Executors.newSingleThreadScheduledExecutor();
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
@@ -41,6 +98,20 @@ public class AppConfig implements WebMvcConfigurer {
         return new JsonMessageConverter();
     }
 
+    // Factory cho batch listener topic checksum, dùng lại cấu hình mặc định của Boot (error handler, ...)
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> checksumBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            JsonMessageConverter converter) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setMessageConverter(new BatchMessagingMessageConverter(converter));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -52,4 +123,22 @@ public class AppConfig implements WebMvcConfigurer {
 
         return template;
     }
+
+    // Xác thực token tại chỗ, cùng secret với user-service
+    @Bean
+    public TokenVerifier tokenVerifier(
+            @Value("${jwt.token.secretKey}") String secret,
+            @Value("${jwt.expire}") long expire) {
+        return new TokenVerifier(secret, expire);
+    }
+
+    // Outbox dùng chung (common-outbox), cấu hình "order.outbox.*"
+    @Bean
+    public OutboxService outboxService(
+            OutboxEventRepository outboxEventRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            Environment environment) {
+        return new OutboxServiceImpl(outboxEventRepository, kafkaTemplate, transactionTemplate, environment, "order");
+    }
 }
@@ -4,9 +4,12 @@ import barbershop.order_service.dtos.request.FindOrderInfoRequest;
 import barbershop.order_service.dtos.request.GetListOrderByUserRequest;
 import barbershop.order_service.dtos.request.PaymentRequest;
 import barbershop.order_service.dtos.request.StatisticQuantityRequest;
+import barbershop.order_service.dtos.request.admin.ExportOrderForAdminRequest;
 import barbershop.order_service.dtos.request.admin.GetListOrderForAdminRequest;
 import barbershop.order_service.dtos.response.BaseResponse;
 import barbershop.order_service.dtos.response.PaginationResponse;
+import barbershop.order_service.services.HairStyleBookingCounterService;
+import barbershop.order_service.services.OrderExportService;
 import barbershop.order_service.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,6 +18,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.Map;
 
@@ -25,6 +29,12 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private HairStyleBookingCounterService hairStyleBookingCounterService;
+
     @GetMapping("/find-order-info")
     public ResponseEntity<BaseResponse> findOrderInfo(
             @ModelAttribute FindOrderInfoRequest findOrderInfoRequest,
@@ -35,7 +45,10 @@ public class OrderController {
     }
 
     @PostMapping("/payment")
-    public ResponseEntity<BaseResponse> payment(@RequestBody PaymentRequest paymentRequest) throws Exception {
+    public ResponseEntity<BaseResponse> payment(
+            @RequestBody PaymentRequest paymentRequest,
+            @RequestAttribute("user") Map<String, Object> user) throws Exception {
+        paymentRequest.setUser(user);
         return new ResponseEntity<>(orderService.payment(paymentRequest), HttpStatus.OK);
     }
 
@@ -69,6 +82,26 @@ public class OrderController {
         return new ResponseEntity<>(orderService.getListOrderForAdmin(getListOrderForAdminRequest), HttpStatus.OK);
     }
 
+    @GetMapping("/admin/order-and-payment/export")
+    public void exportOrderForAdmin(
+            @ModelAttribute ExportOrderForAdminRequest exportOrderForAdminRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        exportOrderForAdminRequest.setUser((Map<String, Object>) request.getAttribute("user"));
+        orderExportService.exportOrderForAdmin(exportOrderForAdminRequest, response);
+    }
+
+    @PostMapping("/admin/hair-style-bookings/rebuild")
+    public ResponseEntity<BaseResponse> rebuildHairStyleBookings() throws Exception {
+        return new ResponseEntity<>(hairStyleBookingCounterService.rebuild(), HttpStatus.OK);
+    }
+
+    @PostMapping("/admin/order-stats/rebuild")
+    public ResponseEntity<BaseResponse> rebuildOrderStats(
+            @RequestParam(value = "range", required = false) String range) throws Exception {
+        return new ResponseEntity<>(orderService.rebuildOrderStatsDaily(range), HttpStatus.OK);
+    }
+
     @PutMapping("/admin/mark-cutted/{orderId}")
     public ResponseEntity<BaseResponse> markCutted(@PathVariable(value="orderId") String orderId) throws Exception {
         return new ResponseEntity<>(orderService.makeCutted(orderId), HttpStatus.OK);
@@ -0,0 +1,14 @@
+package barbershop.order_service.dtos.request;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BlockTimeChangedEventRequest {
+    // null: block lặp lại thay đổi, cả lịch cần load lại
+    private String date;
+}
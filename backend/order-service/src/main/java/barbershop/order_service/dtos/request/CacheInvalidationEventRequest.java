@@ -0,0 +1,13 @@
+package barbershop.order_service.dtos.request;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class CacheInvalidationEventRequest {
+    private int id;
+}
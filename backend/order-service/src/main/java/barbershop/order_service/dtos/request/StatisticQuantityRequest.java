@@ -17,4 +17,7 @@ public class StatisticQuantityRequest {
 
     @IsInt()
     private String year;
+
+    // Không bắt buộc: "yyyy-MM-dd,yyyy-MM-dd" để lấy tổng theo khoảng ngày
+    private String range;
 }
@@ -0,0 +1,20 @@
+package barbershop.order_service.dtos.request.admin;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ExportOrderForAdminRequest {
+    private String sortBy;
+    private String keyword;
+    // "yyyy-MM-dd,yyyy-MM-dd", không giới hạn độ dài như trang danh sách
+    private String range;
+    // csv (mặc định) hoặc ndjson
+    private String format;
+    private Map<String, Object> user;
+}
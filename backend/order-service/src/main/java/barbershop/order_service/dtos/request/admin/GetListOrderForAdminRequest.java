@@ -14,5 +14,7 @@ public class GetListOrderForAdminRequest extends PaginationRequest {
     private String sortBy;
     private String keyword;
     private String range;
+    // "<orderTime epoch millis>_<id>" của order cuối trang trước, có cursor thì bỏ qua page
+    private String cursor;
     private Map<String, Object> user;
 }
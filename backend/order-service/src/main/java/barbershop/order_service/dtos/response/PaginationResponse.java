@@ -17,6 +17,7 @@ public class PaginationResponse extends BaseResponse {
         private int page;
         private int items;
         private int totalRecords;
+        private String nextCursor;
     }
 
     private Meta meta;
@@ -0,0 +1,24 @@
+package barbershop.order_service.entities;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+// Các field của JSON hair_color được tách ra generated column (V2, V4), chỉ đọc.
+// Order không chọn màu thì Hibernate trả về null cho cả object
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class HairColorSnapshot {
+    @Column(name="hair_color_id", insertable = false, updatable = false)
+    private Integer id;
+
+    @Column(name="hair_color_color", insertable = false, updatable = false)
+    private String color;
+
+    @Column(name="hair_color_code", insertable = false, updatable = false)
+    private String colorCode;
+}
@@ -0,0 +1,20 @@
+package barbershop.order_service.entities;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+// Các field của JSON hair_style được tách ra generated column (V2, V4), chỉ đọc
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class HairStyleSnapshot {
+    @Column(name="hair_style_id", insertable = false, updatable = false)
+    private Integer id;
+
+    @Column(name="hair_style_name", insertable = false, updatable = false)
+    private String name;
+}
@@ -3,6 +3,7 @@ package barbershop.order_service.entities;
 import lombok.*;
 
 import javax.persistence.Column;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import java.util.Date;
@@ -35,4 +36,14 @@ public class Order extends BaseEntity {
 
     @Column(name="schedule", nullable = false)
     private Date schedule;
+
+    // Các cột generated từ JSON snapshot (V2, V4 migration), chỉ đọc
+    @Column(name="barber_id", insertable = false, updatable = false)
+    private Integer barberId;
+
+    @Embedded
+    private HairStyleSnapshot hairStyleSnapshot;
+
+    @Embedded
+    private HairColorSnapshot hairColorSnapshot;
 }
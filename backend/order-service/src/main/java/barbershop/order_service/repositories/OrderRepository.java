@@ -1,6 +1,7 @@
 package barbershop.order_service.repositories;
 
 import barbershop.order_service.entities.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,8 +16,15 @@ public interface OrderRepository extends JpaRepository<Order, Integer>, OrderRep
 //    List<Order> findAllByUserId(Integer userId);
 
 //    Cach 2: Named Parameters
-    @Query("select order from Order order where order.userId = :userId")
-    List<Order> findAllByUserId(@Param("userId") Integer userId);
+    // Chỉ select id, không load các cột JSON
+    @Query("select order.id from Order order where order.userId = :userId")
+    List<Integer> findIdsByUserId(@Param("userId") Integer userId);
+
+    @Query("select order.id from Order order where order.userId = :userId and order.id > :afterId order by order.id asc")
+    List<Integer> findIdsByUserIdAfter(@Param("userId") Integer userId, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select order from Order order where order.id in :orderIds and order.id > :afterId order by order.id asc")
+    List<Order> findAllByIdInAfter(@Param("orderIds") List<Integer> orderIds, @Param("afterId") Integer afterId, Pageable pageable);
 
     @Query("select order from Order order where order.id = :orderId and order.userId = :userId")
     Order findByUserIdAndId(@Param("userId") Integer userId, @Param("orderId") Integer orderId);
@@ -1,17 +1,31 @@
 package barbershop.order_service.repositories;
 
 import barbershop.order_service.dtos.request.GetListOrderByUserRequest;
+import barbershop.order_service.dtos.request.admin.ExportOrderForAdminRequest;
 import barbershop.order_service.dtos.request.admin.GetListOrderForAdminRequest;
 import barbershop.order_service.entities.Order;
+import barbershop.order_service.repositories.projections.BarberSchedule;
 import order.HairStyle;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface OrderRepositoryCustom {
     List<HairStyle> getHairStyles(List<Integer> hairStyleIds);
-    List<Integer> findBarberIds(List<Integer> barberIds);
+    List<HairStyle> getHairStylesAfter(List<Integer> hairStyleIds, int afterId, int limit);
+    void addHairStyleBookingCounts(Map<Integer, Long> deltas);
+    int rebuildHairStyleBookingCounts();
+    List<BarberSchedule> findBarberSchedulesFrom(Date from);
     List<Order> getListOrderByUser(int id, GetListOrderByUserRequest getListOrderByUserRequest);
     int countOrderByUser(int id, GetListOrderByUserRequest getListOrderByUserRequest);
     int statisticQuantity(int month, int year);
-    List<Order> getListOrderForAdmin(GetListOrderForAdminRequest getListOrderForAdminRequest);
+    int statisticQuantityBetween(String startDate, String endDate);
+    void incrementOrderStatsDaily(List<Integer> orderIds);
+    int rebuildOrderStatsDaily(String startDate, String endDate);
+    void insertOrders(List<Order> orders);
+    List<Order> getListOrderForAdmin(GetListOrderForAdminRequest getListOrderForAdminRequest, int orderId, List<Integer> userIds, Date cursorOrderTime, int cursorId);
+    int countOrderForAdmin(GetListOrderForAdminRequest getListOrderForAdminRequest, int orderId, List<Integer> userIds);
+    void streamOrderForAdmin(ExportOrderForAdminRequest exportOrderForAdminRequest, int orderId, List<Integer> userIds, int chunkSize, Consumer<List<Order>> chunkConsumer);
 }
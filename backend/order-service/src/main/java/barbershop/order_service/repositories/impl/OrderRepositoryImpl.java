@@ -1,23 +1,35 @@
 package barbershop.order_service.repositories.impl;
 
 import barbershop.order_service.dtos.request.GetListOrderByUserRequest;
+import barbershop.order_service.dtos.request.admin.ExportOrderForAdminRequest;
 import barbershop.order_service.dtos.request.admin.GetListOrderForAdminRequest;
+import barbershop.order_service.entities.HairColorSnapshot;
+import barbershop.order_service.entities.HairStyleSnapshot;
 import barbershop.order_service.entities.Order;
 import barbershop.order_service.repositories.OrderRepositoryCustom;
+import barbershop.order_service.repositories.projections.BarberSchedule;
 import order.HairStyle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Component;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.RowMapper;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class OrderRepositoryImpl implements OrderRepositoryCustom {
@@ -29,13 +41,13 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
 
     @Override
     public List<HairStyle> getHairStyles(List<Integer> hairStyleIds) {
+        // Đọc từ hair_style_booking_counts thay vì group by trên orders
         SqlParameterSource ids = new MapSqlParameterSource("ids", hairStyleIds);
         return namedParameterJdbcTemplate.query("select\n" +
-                "    json_unquote(json_extract(hair_style, '$.id')) AS hair_style_id,\n" +
-                "    count(json_unquote(json_extract(hair_style, '$.id'))) AS booking\n" +
-                "from orders\n" +
-                "where json_unquote(json_extract(hair_style, '$.id')) in (:ids)\n" +
-                "group by hair_style_id\n" +
+                "    hair_style_id,\n" +
+                "    booking\n" +
+                "from hair_style_booking_counts\n" +
+                "where hair_style_id in (:ids)\n" +
                 "order by hair_style_id asc", ids, new RowMapper<HairStyle>() {
 
             @Override
@@ -50,32 +62,63 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
     }
 
     @Override
-    public List<Integer> findBarberIds(List<Integer> barberIds) {
-        SqlParameterSource ids = new MapSqlParameterSource("ids", barberIds);
-        return namedParameterJdbcTemplate.query("select sq1.barber_id from\n" +
-                "(\n" +
-                "\tselect json_unquote(json_extract(barber, '$.id')) as barber_id, count(json_unquote(json_extract(barber, '$.id'))) as counting\n" +
-                "\tfrom orders\n" +
-                "\twhere json_unquote(json_extract(barber, '$.id')) >= 1 and json_unquote(json_extract(barber, '$.id')) <= 20\n" +
-                "\tand DATE(schedule) = '2024-08-02' and schedule != '2024-08-02 16:54:20' and json_unquote(json_extract(barber, '$.active')) = 'true'\n" +
-                "\tgroup by json_unquote(json_extract(barber, '$.id'))\n" +
-                ") as sq1\n" +
-                "inner join\n" +
-                "(\n" +
-                "\tselect json_unquote(json_extract(barber, '$.id')) as barber_id, count(json_unquote(json_extract(barber, '$.id'))) as counting_all\n" +
-                "\tfrom orders\n" +
-                "\twhere json_unquote(json_extract(barber, '$.id')) in (:ids)\n" +
-                "\tand DATE(schedule) = '2024-08-02'\n" +
-                "\tgroup by json_unquote(json_extract(barber, '$.id'))\n" +
-                ") as sq2\n" +
-                "on sq1.barber_id = sq2.barber_id\n" +
-                "where sq1.counting = sq2.counting_all\n" +
-                "order by sq1.counting asc\n" +
-                "limit 1", ids, new RowMapper<Integer>() {
+    public List<HairStyle> getHairStylesAfter(List<Integer> hairStyleIds, int afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", hairStyleIds)
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query("select\n" +
+                "    hair_style_id,\n" +
+                "    booking\n" +
+                "from hair_style_booking_counts\n" +
+                "where hair_style_id in (:ids) and hair_style_id > :afterId\n" +
+                "order by hair_style_id asc\n" +
+                "limit :limit", params, (rs, rowNum) -> HairStyle.newBuilder()
+                        .setId(rs.getInt("hair_style_id"))
+                        .setBooking(rs.getInt("booking"))
+                        .build());
+    }
+
+    @Override
+    public void addHairStyleBookingCounts(Map<Integer, Long> deltas) {
+        String sql = "insert into hair_style_booking_counts (hair_style_id, booking)\n" +
+                "values (:hairStyleId, :delta)\n" +
+                "on duplicate key update booking = booking + values(booking)";
+
+        List<MapSqlParameterSource> batchParams = new ArrayList<>();
+        for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+            batchParams.add(new MapSqlParameterSource()
+                    .addValue("hairStyleId", delta.getKey())
+                    .addValue("delta", delta.getValue()));
+        }
+        namedParameterJdbcTemplate.batchUpdate(sql, batchParams.toArray(new SqlParameterSource[0]));
+    }
+
+    @Override
+    public int rebuildHairStyleBookingCounts() {
+        // Ghi đè bằng số đếm thật từ orders rồi xoá các hair style không còn order nào
+        namedParameterJdbcTemplate.getJdbcTemplate().update("insert into hair_style_booking_counts (hair_style_id, booking)\n" +
+                "select hair_style_id, count(*) from orders\n" +
+                "where hair_style_id is not null\n" +
+                "group by hair_style_id\n" +
+                "on duplicate key update booking = values(booking)");
+        namedParameterJdbcTemplate.getJdbcTemplate().update("delete from hair_style_booking_counts\n" +
+                "where hair_style_id not in (select distinct hair_style_id from orders where hair_style_id is not null)");
+        return namedParameterJdbcTemplate.getJdbcTemplate().queryForObject("select count(*) from hair_style_booking_counts", Integer.class);
+    }
+
+    @Override
+    public List<BarberSchedule> findBarberSchedulesFrom(Date from) {
+        SqlParameterSource params = new MapSqlParameterSource("from", from);
+        return namedParameterJdbcTemplate.query("select\n" +
+                "    barber_id,\n" +
+                "    schedule\n" +
+                "from orders\n" +
+                "where schedule >= :from", params, new RowMapper<BarberSchedule>() {
 
             @Override
-            public Integer mapRow(ResultSet rs, int rowNum) throws SQLException {
-                return rs.getInt("barber_id");
+            public BarberSchedule mapRow(ResultSet rs, int rowNum) throws SQLException {
+                return new BarberSchedule(rs.getInt("barber_id"), rs.getTimestamp("schedule"));
             }
         });
     }
@@ -87,7 +130,7 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
                 "where user_id = :userId\n");
 
         if (getListOrderByUserRequest.getCodeOrHairStyle() != null) {
-            sql.append("and (id = :id or json_unquote(json_extract(hair_style, '$.name')) like :codeOrHairStyle)\n");
+            sql.append("and (id = :id or hair_style_name like :codeOrHairStyle)\n");
         }
 
         if (getListOrderByUserRequest.getSortBy() != null) {
@@ -130,7 +173,7 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
                 "where user_id = :userId\n");
 
         if (getListOrderByUserRequest.getCodeOrHairStyle() != null) {
-            sql.append("and (id = :id or json_unquote(json_extract(hair_style, '$.name')) like :codeOrHairStyle)\n");
+            sql.append("and (id = :id or hair_style_name like :codeOrHairStyle)\n");
         }
 
         Query query = entityManager.createNativeQuery(sql.toString());
@@ -146,13 +189,11 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
 
     @Override
     public int statisticQuantity(int month, int year) {
-        String sql = "select count(*) as quantity\n" +
-                "from orders\n" +
-                "where extract(month from orders.order_time) = :month and extract(year from orders.order_time) = :year";
-//        or
-//        String sql = "select count(*) as quantity\n" +
-//                "from orders\n" +
-//                "where month(orders.order_time) = :month and year(orders.order_time) = :year";
+        // Đọc từ rollup order_stats_daily, tối đa 31 row / tháng
+        String sql = "select coalesce(sum(quantity), 0) as quantity\n" +
+                "from order_stats_daily\n" +
+                "where stat_date >= makedate(:year, 1) + interval (:month - 1) month\n" +
+                "and stat_date < makedate(:year, 1) + interval :month month";
 
         Query query = entityManager.createNativeQuery(sql);
         query.setParameter("month", month);
@@ -162,21 +203,239 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
     }
 
     @Override
-    public List<Order> getListOrderForAdmin(GetListOrderForAdminRequest getListOrderForAdminRequest) {
-        String startDate = getListOrderForAdminRequest.getRange().split(",")[0].trim();
-        String endDate = getListOrderForAdminRequest.getRange().split(",")[1].trim();
-        String sql = "select * from orders\n" +
-                "where date(:startDate) <= date(order_time) and date(order_time) <= date(:endDate)\n" +
-                "order by order_time ";
-        if (getListOrderForAdminRequest.getSortBy() != null) {
-            sql += getListOrderForAdminRequest.getSortBy();
-        } else {
-            sql += "desc";
-        }
-        Query query = entityManager.createNativeQuery(sql, Order.class);
+    public int statisticQuantityBetween(String startDate, String endDate) {
+        String sql = "select coalesce(sum(quantity), 0) as quantity\n" +
+                "from order_stats_daily\n" +
+                "where stat_date >= date(:startDate) and stat_date <= date(:endDate)";
+
+        Query query = entityManager.createNativeQuery(sql);
         query.setParameter("startDate", startDate);
         query.setParameter("endDate", endDate);
 
+        return Integer.parseInt(query.getResultList().get(0).toString());
+    }
+
+    @Override
+    public void incrementOrderStatsDaily(List<Integer> orderIds) {
+        // Lấy ngày bằng date(order_time) giống backfill để 2 đường luôn khớp nhau
+        String sql = "insert into order_stats_daily (stat_date, quantity)\n" +
+                "select date(order_time), count(*) from orders where id in (:ids)\n" +
+                "group by date(order_time)\n" +
+                "on duplicate key update quantity = quantity + values(quantity)";
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter("ids", orderIds);
+        query.executeUpdate();
+    }
+
+    @Override
+    public int rebuildOrderStatsDaily(String startDate, String endDate) {
+        // Ghi đè bằng số đếm thật từ orders trong [startDate, endDate] (null = toàn bộ) rồi xoá các ngày không còn order,
+        // chạy lại nhiều lần vẫn cho cùng kết quả
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate);
+        String orderTimeRange = startDate == null
+                ? ""
+                : "where order_time >= date(:startDate) and order_time < date(:endDate) + interval 1 day\n";
+        String statDateRange = startDate == null
+                ? ""
+                : "and stat_date >= date(:startDate) and stat_date <= date(:endDate)\n";
+
+        namedParameterJdbcTemplate.update("insert into order_stats_daily (stat_date, quantity)\n" +
+                "select date(order_time), count(*) from orders\n" +
+                orderTimeRange +
+                "group by date(order_time)\n" +
+                "on duplicate key update quantity = values(quantity)", params);
+        namedParameterJdbcTemplate.update("delete from order_stats_daily\n" +
+                "where stat_date not in (select distinct date(order_time) from orders " + orderTimeRange + ")\n" +
+                statDateRange, params);
+        return namedParameterJdbcTemplate.queryForObject("select count(*) from order_stats_daily\n" +
+                "where true\n" +
+                statDateRange, params, Integer.class);
+    }
+
+    @Override
+    public void insertOrders(List<Order> orders) {
+        String sql = "insert into orders (created_at, updated_at, hair_style, hair_color, barber, user_id, order_time, cutted, schedule)\n" +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        // Dùng connection của transaction hiện tại, JDBC batch và lấy lại id tự tăng
+        namedParameterJdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                for (Order order : orders) {
+                    preparedStatement.setTimestamp(1, now);
+                    preparedStatement.setTimestamp(2, now);
+                    preparedStatement.setString(3, order.getHairStyle());
+                    preparedStatement.setString(4, order.getHairColor());
+                    preparedStatement.setString(5, order.getBarber());
+                    preparedStatement.setInt(6, order.getUserId());
+                    preparedStatement.setTimestamp(7, new Timestamp(order.getOrderTime().getTime()));
+                    preparedStatement.setBoolean(8, order.isCutted());
+                    preparedStatement.setTimestamp(9, new Timestamp(order.getSchedule().getTime()));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+
+                try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                    for (Order order : orders) {
+                        generatedKeys.next();
+                        order.setId(generatedKeys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<Order> getListOrderForAdmin(
+            GetListOrderForAdminRequest getListOrderForAdminRequest,
+            int orderId,
+            List<Integer> userIds,
+            Date cursorOrderTime,
+            int cursorId) {
+        boolean desc = !"asc".equals(getListOrderForAdminRequest.getSortBy());
+        StringBuilder sql = new StringBuilder("select * from orders\n");
+        appendOrderForAdminConditions(sql, getListOrderForAdminRequest.getKeyword(), userIds);
+
+        // Keyset pagination theo (order_time, id)
+        if (cursorOrderTime != null) {
+            if (desc) {
+                sql.append("and (order_time < :cursorOrderTime or (order_time = :cursorOrderTime and id < :cursorId))\n");
+            } else {
+                sql.append("and (order_time > :cursorOrderTime or (order_time = :cursorOrderTime and id > :cursorId))\n");
+            }
+        }
+
+        if (desc) {
+            sql.append("order by order_time desc, id desc\n");
+        } else {
+            sql.append("order by order_time asc, id asc\n");
+        }
+
+        int items = Integer.parseInt(getListOrderForAdminRequest.getItems());
+        if (cursorOrderTime != null) {
+            sql.append("limit :limit\n");
+        } else {
+            sql.append("limit :offset, :limit\n");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Order.class);
+        setOrderForAdminParameters(query, getListOrderForAdminRequest, orderId, userIds);
+        query.setParameter("limit", items);
+        if (cursorOrderTime != null) {
+            query.setParameter("cursorOrderTime", cursorOrderTime);
+            query.setParameter("cursorId", cursorId);
+        } else {
+            int page = Integer.parseInt(getListOrderForAdminRequest.getPage());
+            query.setParameter("offset", (page - 1) * items);
+        }
+
         return query.getResultList();
     }
+
+    @Override
+    public int countOrderForAdmin(GetListOrderForAdminRequest getListOrderForAdminRequest, int orderId, List<Integer> userIds) {
+        StringBuilder sql = new StringBuilder("select count(*) from orders\n");
+        appendOrderForAdminConditions(sql, getListOrderForAdminRequest.getKeyword(), userIds);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        setOrderForAdminParameters(query, getListOrderForAdminRequest, orderId, userIds);
+
+        return Integer.parseInt(query.getResultList().get(0).toString());
+    }
+
+    @Override
+    public void streamOrderForAdmin(
+            ExportOrderForAdminRequest exportOrderForAdminRequest,
+            int orderId,
+            List<Integer> userIds,
+            int chunkSize,
+            Consumer<List<Order>> chunkConsumer) {
+        boolean desc = !"asc".equals(exportOrderForAdminRequest.getSortBy());
+        StringBuilder baseSql = new StringBuilder("select id, user_id, hair_style_id, hair_style_name, hair_color_id, hair_color_color, hair_color_code, order_time, cutted, schedule\n" +
+                "from orders\n");
+        appendOrderForAdminConditions(baseSql, exportOrderForAdminRequest.getKeyword(), userIds);
+        String orderBy = desc ? "order by order_time desc, id desc\n" : "order by order_time asc, id asc\n";
+        String firstPageSql = baseSql + orderBy + "limit :limit";
+        String nextPageSql = baseSql
+                + (desc
+                        ? "and (order_time < :cursorOrderTime or (order_time = :cursorOrderTime and id < :cursorId))\n"
+                        : "and (order_time > :cursorOrderTime or (order_time = :cursorOrderTime and id > :cursorId))\n")
+                + orderBy + "limit :limit";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("startDate", exportOrderForAdminRequest.getRange().split(",")[0].trim())
+                .addValue("endDate", exportOrderForAdminRequest.getRange().split(",")[1].trim())
+                .addValue("limit", chunkSize);
+        String keyword = exportOrderForAdminRequest.getKeyword();
+        if (keyword != null && !keyword.isEmpty()) {
+            params.addValue("id", orderId);
+            params.addValue("keyword", "%"+keyword+"%");
+            if (!userIds.isEmpty()) {
+                params.addValue("userIds", userIds);
+            }
+        }
+
+        // Keyset pagination theo (order_time, id): mỗi trang là một query ngắn, connection trả về pool trước khi
+        // chunkConsumer enrich qua gRPC và ghi ra response. Bộ nhớ chỉ giữ một trang, không phụ thuộc cấu hình driver
+        RowMapper<Order> rowMapper = (rs, rowNum) -> {
+            Order order = Order.builder()
+                    .userId(rs.getInt("user_id"))
+                    .orderTime(rs.getTimestamp("order_time"))
+                    .cutted(rs.getBoolean("cutted"))
+                    .schedule(rs.getTimestamp("schedule"))
+                    .hairStyleSnapshot(new HairStyleSnapshot(rs.getInt("hair_style_id"), rs.getString("hair_style_name")))
+                    .hairColorSnapshot(rs.getObject("hair_color_id") == null
+                            ? null
+                            : new HairColorSnapshot(rs.getInt("hair_color_id"), rs.getString("hair_color_color"), rs.getString("hair_color_code")))
+                    .build();
+            order.setId(rs.getInt("id"));
+            return order;
+        };
+        List<Order> chunk = namedParameterJdbcTemplate.query(firstPageSql, params, rowMapper);
+        while (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            Order lastOrder = chunk.get(chunk.size() - 1);
+            params.addValue("cursorOrderTime", lastOrder.getOrderTime());
+            params.addValue("cursorId", lastOrder.getId());
+            chunk = namedParameterJdbcTemplate.query(nextPageSql, params, rowMapper);
+        }
+    }
+
+    private void appendOrderForAdminConditions(StringBuilder sql, String keyword, List<Integer> userIds) {
+        // Range trên cột order_time (không bọc date()) để dùng được index
+        sql.append("where order_time >= :startDate and order_time < date_add(:endDate, interval 1 day)\n");
+
+        if (keyword != null && !keyword.isEmpty()) {
+            sql.append("and (id = :id or hair_style_name like :keyword");
+            if (!userIds.isEmpty()) {
+                sql.append(" or user_id in (:userIds)");
+            }
+            sql.append(")\n");
+        }
+    }
+
+    private void setOrderForAdminParameters(
+            Query query,
+            GetListOrderForAdminRequest getListOrderForAdminRequest,
+            int orderId,
+            List<Integer> userIds) {
+        query.setParameter("startDate", getListOrderForAdminRequest.getRange().split(",")[0].trim());
+        query.setParameter("endDate", getListOrderForAdminRequest.getRange().split(",")[1].trim());
+
+        String keyword = getListOrderForAdminRequest.getKeyword();
+        if (keyword != null && !keyword.isEmpty()) {
+            query.setParameter("id", orderId);
+            query.setParameter("keyword", "%"+keyword+"%");
+            if (!userIds.isEmpty()) {
+                query.setParameter("userIds", userIds);
+            }
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package barbershop.order_service.repositories.projections;
+
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BarberSchedule {
+    private int barberId;
+    private Date schedule;
+}
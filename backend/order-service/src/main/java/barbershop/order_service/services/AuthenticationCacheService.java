@@ -0,0 +1,15 @@
+package barbershop.order_service.services;
+
+import user.User;
+
+public interface AuthenticationCacheService {
+    /**
+     * User của token: token được kiểm tra tại chỗ, profile lấy từ cache theo userId. Các request cùng user đang miss chỉ gọi user-service một lần.
+     */
+    User getUser(String token) throws Exception;
+
+    /**
+     * Xoá profile của user khỏi cache (logout, khoá tài khoản, đổi profile).
+     */
+    void revoke(int userId);
+}
@@ -0,0 +1,16 @@
+package barbershop.order_service.services;
+
+import barber.Barber;
+
+import java.util.List;
+
+public interface BarberCatalogService {
+    List<Barber> getAllBarbers();
+
+    /**
+     * @return barber theo id, null nếu barber-service cũng không tìm thấy
+     */
+    Barber getBarber(int id);
+
+    void refresh();
+}
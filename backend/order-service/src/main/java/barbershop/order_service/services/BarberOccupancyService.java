@@ -0,0 +1,20 @@
+package barbershop.order_service.services;
+
+import barber.Barber;
+
+import java.util.Date;
+import java.util.List;
+
+public interface BarberOccupancyService {
+    /**
+     * Các barber đang active và còn trống slot (date, time), sắp theo số lịch trong ngày tăng dần.
+     */
+    List<Barber> findFreeBarbers(List<Barber> barbers, String date, String time);
+
+    /**
+     * Đánh dấu slot của barber đã có lịch. Nếu đang trong transaction thì chỉ cập nhật sau khi commit.
+     */
+    void markOccupied(int barberId, Date schedule);
+
+    void refresh();
+}
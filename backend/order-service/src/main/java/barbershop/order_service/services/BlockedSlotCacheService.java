@@ -0,0 +1,13 @@
+package barbershop.order_service.services;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+public interface BlockedSlotCacheService {
+    /**
+     * Slot (date "yyyy-MM-dd", time "HH:mm") có bị block không. Miss thì lấy mask của cả 7 ngày từ date
+     * bằng một lần gọi getBlockedSlots rồi cache từng ngày.
+     */
+    ListenableFuture<Boolean> isBlocked(String date, String time);
+
+    void invalidate(String date);
+}
@@ -0,0 +1,11 @@
+package barbershop.order_service.services;
+
+import barbershop.order_service.dtos.request.ChecksumEventRequest;
+
+import java.util.List;
+
+public interface ChecksumSettlementService {
+    void settle(ChecksumEventRequest checksumEventRequest) throws Exception;
+
+    void settleBatch(List<ChecksumEventRequest> checksumEventRequests) throws Exception;
+}
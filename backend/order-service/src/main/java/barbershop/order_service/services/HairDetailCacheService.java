@@ -0,0 +1,15 @@
+package barbershop.order_service.services;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import hairColor.HairColor;
+import hairStyle.HairStyle;
+
+public interface HairDetailCacheService {
+    ListenableFuture<HairStyle> getHairStyle(int id);
+
+    ListenableFuture<HairColor> getHairColor(int id);
+
+    void invalidateHairStyle(int id);
+
+    void invalidateHairColor(int id);
+}
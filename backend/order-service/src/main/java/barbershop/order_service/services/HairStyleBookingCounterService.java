@@ -0,0 +1,20 @@
+package barbershop.order_service.services;
+
+import barbershop.order_service.dtos.response.BaseResponse;
+
+public interface HairStyleBookingCounterService {
+    /**
+     * Tăng bộ đếm trong bộ nhớ. Nếu đang trong transaction thì chỉ tăng sau khi commit.
+     */
+    void increment(int hairStyleId);
+
+    /**
+     * Cộng dồn các bộ đếm trong bộ nhớ vào hair_style_booking_counts.
+     */
+    void flush();
+
+    /**
+     * Tính lại hair_style_booking_counts từ bảng orders.
+     */
+    BaseResponse rebuild() throws Exception;
+}
@@ -0,0 +1,20 @@
+package barbershop.order_service.services;
+
+import barbershop.order_service.Utils.IntIndex;
+import barbershop.order_service.dtos.response.FieldErrorsResponse;
+import barbershop.order_service.entities.Order;
+import payment.Payment;
+import user.User;
+import user.UserFeedback;
+
+import java.util.List;
+
+public interface OrderEnrichmentService {
+    IntIndex<Payment> indexPaymentsByOrderId(List<Order> orders);
+
+    IntIndex<User> indexUsersById(List<Order> orders);
+
+    IntIndex<UserFeedback> indexUserFeedbacksById(List<Order> orders);
+
+    List<Integer> findUserIdsByKeyword(String keyword, String resource) throws FieldErrorsResponse;
+}
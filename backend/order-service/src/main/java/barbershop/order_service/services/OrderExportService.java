@@ -0,0 +1,13 @@
+package barbershop.order_service.services;
+
+import barbershop.order_service.dtos.request.admin.ExportOrderForAdminRequest;
+
+import javax.servlet.http.HttpServletResponse;
+
+public interface OrderExportService {
+    /**
+     * Ghi toàn bộ order trong range ra response dạng CSV hoặc NDJSON, đọc và enrich theo từng chunk.
+     * Lỗi validate được throw trước khi ghi byte đầu tiên.
+     */
+    void exportOrderForAdmin(ExportOrderForAdminRequest exportOrderForAdminRequest, HttpServletResponse response) throws Exception;
+}
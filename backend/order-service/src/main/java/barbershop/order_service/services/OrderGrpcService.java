@@ -1,21 +1,27 @@
 package barbershop.order_service.services;
 
+import barbershop.order_service.Utils.IntIndex;
 import barbershop.order_service.Utils.Utils;
+import barbershop.order_service.entities.HairColorSnapshot;
 import barbershop.order_service.enums.TimeZone;
 import barbershop.order_service.repositories.OrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 import order.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import user.GetListUserFeedbackByIdsRequest;
-import user.GetListUserFeedbackByIdsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @GrpcService
 public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
 
@@ -23,11 +29,17 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
     private OrderRepository orderRepository;
 
     @Autowired
-    private UserClientGrpcService userClientGrpcService;
+    private OrderEnrichmentService orderEnrichmentService;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Value("${order.grpc.order-id-chunk-size:1000}")
+    private int orderIdChunkSize;
+
+    @Value("${order.grpc.max-page-size:500}")
+    private int maxPageSize;
+
     @Override
     public void getListHairStyle(GetListHairStyleRequest request,
                                  StreamObserver<GetListHairStyleResponse> responseObserver) {
@@ -43,60 +55,92 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void getListHairStylePage(GetListHairStylePageRequest request,
+                                     StreamObserver<GetListHairStylePageResponse> responseObserver) {
+        int limit = pageLimit(request.getLimit());
+        List<HairStyle> hairStyles = request.getIdsCount() == 0
+                ? List.of()
+                : orderRepository.getHairStylesAfter(request.getIdsList(), request.getCursor(), limit);
+
+        responseObserver.onNext(GetListHairStylePageResponse.newBuilder()
+                .addAllHairStyles(hairStyles)
+                .setNextCursor(hairStyles.size() < limit ? 0 : hairStyles.get(hairStyles.size() - 1).getId())
+                .build());
+        responseObserver.onCompleted();
+    }
+
     @Override
     public void getListUserFeedbackByOrderIds(GetListUserFeedbackByOrderIdsRequest request,
                                     StreamObserver<GetListUserFeedbackByOrderIdsResponse> responseObserver) {
         try {
             List<barbershop.order_service.entities.Order> orders = orderRepository.findAllById(request.getOrderIdsList());
 
-            GetListUserFeedbackByIdsRequest.Builder getListUserFeedbackByIdsRequestBuilder = GetListUserFeedbackByIdsRequest.newBuilder();
-            for (barbershop.order_service.entities.Order order : orders) {
-                getListUserFeedbackByIdsRequestBuilder.addIds(order.getUserId());
-            }
-            GetListUserFeedbackByIdsRequest getListUserFeedbackByIdsRequest = getListUserFeedbackByIdsRequestBuilder.build();
-            GetListUserFeedbackByIdsResponse getListUsersByIdsResponse = userClientGrpcService.getListUserFeedbackByIds(getListUserFeedbackByIdsRequest);
-
-            GetListUserFeedbackByOrderIdsResponse.Builder getListUserFeedbackByOrderIdsResponseBuilder = GetListUserFeedbackByOrderIdsResponse.newBuilder();
-            System.out.println(orders.size());
-            for (int i = 0; i < orders.size(); i++) {
-                barbershop.order_service.entities.Order orderEntity = orders.get(i);
-                Map<String, Object> hairColorMap = (Map<String, Object>) objectMapper.readValue(orderEntity.getHairColor() == null ? "null" : orderEntity.getHairColor(), Map.class);
-                user.UserFeedback user = getUserById(getListUsersByIdsResponse.getUserFeedbacksList(), orderEntity.getUserId());
-                Map<String, Object> hairColorGrpcMap = new LinkedHashMap<>();
-                if (hairColorMap != null) {
-                    hairColorGrpcMap.put("color", hairColorMap.get("color").toString());
-                    hairColorGrpcMap.put("colorCode", hairColorMap.get("colorCode").toString());
-                }
-                order.UserFeedback userFeedback = order.UserFeedback.newBuilder()
-                        .setId(user.getId())
-                        .setAvatar(user.getAvatar())
-                        .setUsername(user.getUsername())
-                        .setHairColor(hairColorMap == null ? "" : objectMapper.writeValueAsString(hairColorGrpcMap))
-                        .setOrderId(orderEntity.getId())
-                        .build();
-                getListUserFeedbackByOrderIdsResponseBuilder.addUserFeedbacks(i, userFeedback);
-            }
-            GetListUserFeedbackByOrderIdsResponse getListUserFeedbackByOrderIdsResponse = getListUserFeedbackByOrderIdsResponseBuilder.build();
+            responseObserver.onNext(GetListUserFeedbackByOrderIdsResponse.newBuilder()
+                    .addAllUserFeedbacks(toUserFeedbacks(orders))
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception exception) {
+            responseObserver.onError(Status.INTERNAL.withDescription(exception.getMessage()).asRuntimeException());
+        }
+    }
 
-            responseObserver.onNext(getListUserFeedbackByOrderIdsResponse);
+    @Override
+    public void getListUserFeedbackByOrderIdsPage(GetListUserFeedbackByOrderIdsPageRequest request,
+                                                  StreamObserver<GetListUserFeedbackByOrderIdsPageResponse> responseObserver) {
+        try {
+            int limit = pageLimit(request.getLimit());
+            List<barbershop.order_service.entities.Order> orders = request.getOrderIdsCount() == 0
+                    ? List.of()
+                    : orderRepository.findAllByIdInAfter(request.getOrderIdsList(), request.getCursor(), PageRequest.of(0, limit));
+
+            responseObserver.onNext(GetListUserFeedbackByOrderIdsPageResponse.newBuilder()
+                    .addAllUserFeedbacks(toUserFeedbacks(orders))
+                    .setNextCursor(orders.size() < limit ? 0 : orders.get(orders.size() - 1).getId())
+                    .build());
             responseObserver.onCompleted();
         } catch (Exception exception) {
             responseObserver.onError(Status.INTERNAL.withDescription(exception.getMessage()).asRuntimeException());
         }
     }
 
+    private List<UserFeedback> toUserFeedbacks(List<barbershop.order_service.entities.Order> orders) throws Exception {
+        IntIndex<user.UserFeedback> userIndex = orderEnrichmentService.indexUserFeedbacksById(orders);
+
+        List<UserFeedback> userFeedbacks = new ArrayList<>();
+        for (barbershop.order_service.entities.Order orderEntity : orders) {
+            HairColorSnapshot hairColorSnapshot = orderEntity.getHairColorSnapshot();
+            user.UserFeedback user = userIndex.get(orderEntity.getUserId());
+            Map<String, Object> hairColorGrpcMap = new LinkedHashMap<>();
+            if (hairColorSnapshot != null) {
+                hairColorGrpcMap.put("color", hairColorSnapshot.getColor());
+                hairColorGrpcMap.put("colorCode", hairColorSnapshot.getColorCode());
+            }
+            userFeedbacks.add(UserFeedback.newBuilder()
+                    .setId(user.getId())
+                    .setAvatar(user.getAvatar())
+                    .setUsername(user.getUsername())
+                    .setHairColor(hairColorSnapshot == null ? "" : objectMapper.writeValueAsString(hairColorGrpcMap))
+                    .setOrderId(orderEntity.getId())
+                    .build());
+        }
+        return userFeedbacks;
+    }
+
+    // limit <= 0 thì dùng max page size
+    private int pageLimit(int limit) {
+        return limit <= 0 ? maxPageSize : Math.min(limit, maxPageSize);
+    }
+
     @Override
     public void getListOrderByUserId(GetListOrderIdByUserIdRequest request,
                                      StreamObserver<GetListOrderIdByUserIdResponse> responseObserver) {
         try {
-            List<barbershop.order_service.entities.Order> orders = orderRepository.findAllByUserId(request.getUserId());
-            GetListOrderIdByUserIdResponse.Builder getListOrderIdByUserIdResponseBuilder = GetListOrderIdByUserIdResponse.newBuilder();
-            for (int i = 0; i < orders.size(); i++) {
-                barbershop.order_service.entities.Order order = orders.get(i);
-                getListOrderIdByUserIdResponseBuilder.addOrderIds(order.getId());
-            }
+            List<Integer> orderIds = orderRepository.findIdsByUserId(request.getUserId());
 
-            responseObserver.onNext(getListOrderIdByUserIdResponseBuilder.build());
+            responseObserver.onNext(GetListOrderIdByUserIdResponse.newBuilder()
+                    .addAllOrderIds(orderIds)
+                    .build());
             responseObserver.onCompleted();
         } catch (Exception e) {
             e.printStackTrace();
@@ -104,11 +148,60 @@ public class OrderGrpcService extends OrderServiceGrpc.OrderServiceImplBase {
         }
     }
 
-    private user.UserFeedback getUserById(List<user.UserFeedback> users, int userId) {
-        for (user.UserFeedback u: users) {
-            if (u.getId() == userId) return u;
+    // Chỉ đọc chunk tiếp theo khi transport sẵn sàng (isReady), client chậm thì dừng lại chờ onReady
+    // nên server chỉ giữ khoảng một chunk id thay vì buffer cả danh sách
+    @Override
+    public void streamOrderIdsByUserId(GetListOrderIdByUserIdRequest request,
+                                       StreamObserver<GetListOrderIdByUserIdResponse> responseObserver) {
+        ServerCallStreamObserver<GetListOrderIdByUserIdResponse> serverCallStreamObserver =
+                (ServerCallStreamObserver<GetListOrderIdByUserIdResponse>) responseObserver;
+        // Có cancel handler thì onNext sau khi client huỷ không throw
+        serverCallStreamObserver.setOnCancelHandler(() -> log.info("Stream order ids of user {} cancelled", request.getUserId()));
+        serverCallStreamObserver.setOnReadyHandler(new OrderIdStreamer(request.getUserId(), serverCallStreamObserver));
+    }
+
+    // gRPC gọi onReady tuần tự cho một call nên state không cần đồng bộ
+    private class OrderIdStreamer implements Runnable {
+        private final int userId;
+        private final ServerCallStreamObserver<GetListOrderIdByUserIdResponse> responseObserver;
+        // Keyset theo id, mỗi query chỉ giữ một chunk id trong bộ nhớ
+        private int afterId = 0;
+        private boolean done = false;
+
+        private OrderIdStreamer(int userId, ServerCallStreamObserver<GetListOrderIdByUserIdResponse> responseObserver) {
+            this.userId = userId;
+            this.responseObserver = responseObserver;
+        }
+
+        @Override
+        public void run() {
+            if (done) {
+                return;
+            }
+            try {
+                while (responseObserver.isReady() && !responseObserver.isCancelled()) {
+                    List<Integer> orderIds = orderRepository.findIdsByUserIdAfter(userId, afterId, PageRequest.of(0, orderIdChunkSize));
+                    if (!orderIds.isEmpty()) {
+                        responseObserver.onNext(GetListOrderIdByUserIdResponse.newBuilder()
+                                .addAllOrderIds(orderIds)
+                                .build());
+                    }
+                    if (orderIds.size() < orderIdChunkSize) {
+                        done = true;
+                        responseObserver.onCompleted();
+                        return;
+                    }
+                    afterId = orderIds.get(orderIds.size() - 1);
+                }
+                if (responseObserver.isCancelled()) {
+                    done = true;
+                }
+            } catch (Exception e) {
+                done = true;
+                log.error("Stream order ids of user {} failed", userId, e);
+                responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+            }
         }
-        return null;
     }
 
     @Override
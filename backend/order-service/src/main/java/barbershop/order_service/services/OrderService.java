@@ -16,6 +16,7 @@ public interface OrderService {
     PaginationResponse getListOrderByUser(GetListOrderByUserRequest getListOrderByUserRequest) throws Exception;
     BaseResponse getOrderById(String orderIdString, Map<String, Object> user) throws Exception;
     BaseResponse getStatisticQuantity(StatisticQuantityRequest statisticQuantityRequest) throws Exception;
+    BaseResponse rebuildOrderStatsDaily(String range) throws Exception;
     BaseResponse getListOrderForAdmin(GetListOrderForAdminRequest getListOrderForAdminRequest) throws Exception;
     BaseResponse makeCutted(String orderId) throws Exception;
 }
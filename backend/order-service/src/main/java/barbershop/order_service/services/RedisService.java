@@ -1,10 +1,13 @@
 package barbershop.order_service.services;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public interface RedisService {
     void setValue(String key, String value);
     void setValue(String key, String value, long timeout, TimeUnit unit);
     String getValue(String key);
+    void setBytes(String key, byte[] value, long timeout, TimeUnit unit);
+    List<byte[]> getBytesValues(List<String> keys);
     void deleteKey(String key);
 }
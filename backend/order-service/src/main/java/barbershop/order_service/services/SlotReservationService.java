@@ -0,0 +1,23 @@
+package barbershop.order_service.services;
+
+import barber.Barber;
+
+import java.util.List;
+
+public interface SlotReservationService {
+    /**
+     * Giữ slot (date, time) cho barber đầu tiên còn trống trong candidates bằng một Lua script,
+     * giữ trong thời gian sống của pending order.
+     *
+     * @return barber đã giữ được slot, null nếu tất cả đã bị giữ
+     */
+    Barber reserve(List<Barber> candidates, String date, String time, String orderUUID);
+
+    void release(String date, String time, int barberId, String orderUUID);
+
+    /**
+     * Xác nhận slot khi order đã được lưu (schedule dạng yyyy-MM-dd HH:mm).
+     * Nếu đang trong transaction thì chỉ xác nhận sau khi commit.
+     */
+    void confirm(String schedule, int barberId, String orderUUID);
+}
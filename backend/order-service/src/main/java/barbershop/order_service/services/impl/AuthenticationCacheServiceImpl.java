@@ -0,0 +1,76 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.common.security.AuthenticationCache;
+import barbershop.common.security.TokenVerifier;
+import barbershop.order_service.exception.HttpException;
+import barbershop.order_service.services.AuthenticationCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+import user.GetListUserByIdsRequest;
+import user.User;
+import user.UserServiceGrpc;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+// Cache / coalescing / listener "user-revoked" nằm ở AuthenticationCache (common-security), ở đây chỉ load profile qua gRPC
+@Service
+public class AuthenticationCacheServiceImpl implements AuthenticationCacheService {
+    @GrpcClient("user-grpc-server")
+    private UserServiceGrpc.UserServiceBlockingStub userServiceBlockingStub;
+
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private ConsumerFactory<Object, Object> consumerFactory;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AuthenticationCache<User> authenticationCache;
+
+    @PostConstruct
+    public void init() {
+        authenticationCache = new AuthenticationCache<>(tokenVerifier, this::loadUser, environment, "order");
+        CaffeineCacheMetrics.monitor(meterRegistry, authenticationCache.getUsers(), "authentication");
+        authenticationCache.start(consumerFactory, "order-service-auth-cache");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        authenticationCache.stop();
+    }
+
+    @Override
+    public User getUser(String token) throws Exception {
+        try {
+            return authenticationCache.getUser(token);
+        } catch (AuthenticationCache.AuthenticationException exception) {
+            throw new HttpException(exception.getMessage(), exception.getStatus());
+        }
+    }
+
+    @Override
+    public void revoke(int userId) {
+        authenticationCache.revoke(userId);
+    }
+
+    private User loadUser(int userId) {
+        List<User> found = userServiceBlockingStub.getListUserByIds(
+                GetListUserByIdsRequest.newBuilder()
+                        .addIds(userId)
+                        .build()
+        ).getUsersList();
+        return found.isEmpty() ? null : found.get(0);
+    }
+}
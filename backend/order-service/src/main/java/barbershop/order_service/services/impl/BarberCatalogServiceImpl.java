@@ -0,0 +1,195 @@
+package barbershop.order_service.services.impl;
+
+import barber.Barber;
+import barber.BarberServiceGrpc;
+import barber.GetAllBarberRequest;
+import barber.GetDetailBarberRequest;
+import barbershop.order_service.services.BarberCatalogService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache danh sách barber (ít thay đổi) để không phải gọi barber-service cho mỗi request.
+ * Reader luôn đọc snapshot hiện tại, việc refresh chạy nền và chỉ thay snapshot khi đã load xong.
+ * Id không có trong barber-service (barber đã xoá của order cũ) được nhớ lại trong một TTL để không gọi lại mỗi request.
+ */
+@Slf4j
+@Service
+public class BarberCatalogServiceImpl implements BarberCatalogService {
+    @GrpcClient("barber-grpc-server")
+    private BarberServiceGrpc.BarberServiceBlockingStub barberServiceBlockingStub;
+
+    @Autowired
+    @Qualifier("grpcClientExecutor")
+    private ExecutorService grpcClientExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.grpc.deadline-ms:3000}")
+    private long grpcDeadlineMs;
+
+    @Value("${order.barber-catalog.not-found-ttl-ms:300000}")
+    private long notFoundTtlMs;
+
+    @Value("${order.barber-catalog.not-found-maximum-size:10000}")
+    private long notFoundMaximumSize;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // Id barber-service trả NOT_FOUND
+    private Cache<Integer, Boolean> notFoundIds;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    private Counter refreshFailureCounter;
+
+    @PostConstruct
+    public void init() {
+        notFoundIds = Caffeine.newBuilder()
+                .maximumSize(notFoundMaximumSize)
+                .expireAfterWrite(notFoundTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+        hitCounter = Counter.builder("barber.catalog.requests").tag("result", "hit").register(meterRegistry);
+        missCounter = Counter.builder("barber.catalog.requests").tag("result", "miss").register(meterRegistry);
+        refreshFailureCounter = Counter.builder("barber.catalog.refresh.failures").register(meterRegistry);
+        Gauge.builder("barber.catalog.refresh.age.seconds", this, catalog -> catalog.getRefreshAgeSeconds())
+                .register(meterRegistry);
+        Gauge.builder("barber.catalog.size", this, catalog -> catalog.snapshot.barbers.size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Barber> getAllBarbers() {
+        Snapshot current = snapshot;
+        if (current.loadedAt == 0) {
+            // Chưa có snapshot nào (cold start / barber-service lỗi lúc khởi động) thì load đồng bộ
+            missCounter.increment();
+            return load().barbers;
+        }
+        hitCounter.increment();
+        return current.barbers;
+    }
+
+    @Override
+    public Barber getBarber(int id) {
+        Snapshot current = snapshot;
+        Barber barber = current.barbersById.get(id);
+        if (barber != null) {
+            hitCounter.increment();
+            return barber;
+        }
+        if (notFoundIds.getIfPresent(id) != null) {
+            hitCounter.increment();
+            return null;
+        }
+
+        // Chỉ id lớn hơn id lớn nhất của snapshot mới có thể là barber tạo sau lần refresh gần nhất: refresh nền.
+        // Id nhỏ hơn mà không có trong snapshot là barber đã xoá, refresh cả danh sách cũng không thấy
+        missCounter.increment();
+        if (current.loadedAt == 0 || id > current.maxId) {
+            refreshAsync();
+        }
+        try {
+            return barberServiceBlockingStub
+                    .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                    .getDetailBarber(GetDetailBarberRequest.newBuilder().setId(id).build())
+                    .getBarber();
+        } catch (StatusRuntimeException exception) {
+            if (exception.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                notFoundIds.put(id, Boolean.TRUE);
+                return null;
+            }
+            throw exception;
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${order.barber-catalog.refresh-interval-ms:300000}",
+            initialDelay = 0
+    )
+    @Override
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            load();
+        } catch (Exception exception) {
+            // Giữ snapshot cũ, lần refresh sau sẽ thử lại
+            refreshFailureCounter.increment();
+            log.error("ERROR", exception);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void refreshAsync() {
+        if (refreshing.get()) {
+            return;
+        }
+        grpcClientExecutor.execute(this::refresh);
+    }
+
+    private Snapshot load() {
+        List<Barber> barbers = barberServiceBlockingStub
+                .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                .getAllBarber(GetAllBarberRequest.newBuilder().build())
+                .getDataList();
+        Snapshot loaded = new Snapshot(barbers, System.currentTimeMillis());
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private double getRefreshAgeSeconds() {
+        long loadedAt = snapshot.loadedAt;
+        return loadedAt == 0 ? -1 : (System.currentTimeMillis() - loadedAt) / 1000.0;
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), 0);
+
+        private final List<Barber> barbers;
+
+        private final Map<Integer, Barber> barbersById;
+
+        private final long loadedAt;
+
+        private final int maxId;
+
+        private Snapshot(List<Barber> barbers, long loadedAt) {
+            Map<Integer, Barber> barbersById = new HashMap<>();
+            int maxId = 0;
+            for (Barber barber : barbers) {
+                barbersById.put(barber.getId(), barber);
+                maxId = Math.max(maxId, barber.getId());
+            }
+            this.maxId = maxId;
+            this.barbers = List.copyOf(barbers);
+            this.barbersById = Collections.unmodifiableMap(barbersById);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package barbershop.order_service.services.impl;
+
+import barber.Barber;
+import barbershop.order_service.Utils.Utils;
+import barbershop.order_service.enums.TimeZone;
+import barbershop.order_service.repositories.OrderRepository;
+import barbershop.order_service.repositories.projections.BarberSchedule;
+import barbershop.order_service.services.BarberOccupancyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index lịch đã đặt theo ngày: mỗi ngày giữ một bitmask 25 slot (08:00 - 20:00) cho từng barber,
+ * được build từ bảng orders khi khởi động và cập nhật khi có order mới.
+ * Các order được lưu bởi replica khác sẽ được đồng bộ lại qua lần refresh định kỳ.
+ */
+@Slf4j
+@Service
+public class BarberOccupancyServiceImpl implements BarberOccupancyService {
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // key: epoch day theo múi giờ Asia/Ho_Chi_Minh
+    private final ConcurrentHashMap<Integer, DayOccupancy> days = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Override
+    public List<Barber> findFreeBarbers(List<Barber> barbers, String date, String time) {
+        int slot = Utils.getTimeSlotIndex(time);
+        if (slot < 0) {
+            return new ArrayList<>();
+        }
+        int epochDay = (int) LocalDate.parse(date).toEpochDay();
+        DayOccupancy dayOccupancy = days.get(epochDay);
+        return dayOccupancy == null ? findActive(barbers) : dayOccupancy.freeByLoad(barbers, slot);
+    }
+
+    @Override
+    public void markOccupied(int barberId, Date schedule) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mark(barberId, schedule);
+                }
+            });
+            return;
+        }
+        mark(barberId, schedule);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${order.occupancy.refresh-interval-ms:60000}",
+            initialDelayString = "${order.occupancy.refresh-interval-ms:60000}"
+    )
+    @Override
+    public void refresh() {
+        LocalDate today = LocalDate.now(ZoneId.of(TimeZone.ASIA_HCM.value()));
+        Date from = Date.from(today.atStartOfDay(ZoneId.of(TimeZone.ASIA_HCM.value())).toInstant());
+        try {
+            // Không có huỷ order nên chỉ cần OR thêm các slot, không làm mất các slot vừa mark trong lúc refresh
+            List<BarberSchedule> barberSchedules = orderRepository.findBarberSchedulesFrom(from);
+            for (BarberSchedule barberSchedule : barberSchedules) {
+                mark(barberSchedule.getBarberId(), barberSchedule.getSchedule());
+            }
+            days.keySet().removeIf(epochDay -> epochDay < today.toEpochDay());
+        } catch (Exception exception) {
+            log.error("ERROR", exception);
+        }
+    }
+
+    private void mark(int barberId, Date schedule) {
+        int slot = Utils.getTimeSlotIndex(schedule, TimeZone.ASIA_HCM.value());
+        if (slot < 0 || barberId < 0) {
+            return;
+        }
+        int epochDay = Utils.toEpochDay(schedule, TimeZone.ASIA_HCM.value());
+        days.computeIfAbsent(epochDay, key -> new DayOccupancy()).mark(barberId, slot);
+    }
+
+    private List<Barber> findActive(List<Barber> barbers) {
+        List<Barber> activeBarbers = new ArrayList<>();
+        for (Barber barber : barbers) {
+            if (barber.getActive()) {
+                activeBarbers.add(barber);
+            }
+        }
+        return activeBarbers;
+    }
+
+    private static final class DayOccupancy {
+        // masks[barberId]: bit i = slot thứ i đã có lịch
+        private int[] masks = new int[32];
+
+        synchronized void mark(int barberId, int slot) {
+            if (barberId >= masks.length) {
+                masks = Arrays.copyOf(masks, Math.max(barberId + 1, masks.length * 2));
+            }
+            masks[barberId] |= 1 << slot;
+        }
+
+        synchronized List<Barber> freeByLoad(List<Barber> barbers, int slot) {
+            List<Barber> freeBarbers = new ArrayList<>();
+            for (Barber barber : barbers) {
+                if (!barber.getActive() || barber.getId() < 0) {
+                    continue;
+                }
+                if ((mask(barber.getId()) & (1 << slot)) == 0) {
+                    freeBarbers.add(barber);
+                }
+            }
+            // Sort ổn định: cùng số lịch thì giữ thứ tự catalog
+            freeBarbers.sort(Comparator.comparingInt(barber -> Integer.bitCount(mask(barber.getId()))));
+            return freeBarbers;
+        }
+
+        private int mask(int barberId) {
+            return barberId < masks.length ? masks[barberId] : 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.order_service.Utils.Utils;
+import barbershop.order_service.dtos.request.BlockTimeChangedEventRequest;
+import barbershop.order_service.services.BlockedSlotCacheService;
+import block_time.BlockTimeServiceGrpc;
+import block_time.GetBlockedSlotsRequest;
+import block_time.GetBlockedSlotsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-cache mask slot bị block theo ngày. Một lần miss lấy cả cửa sổ đặt lịch 7 ngày bằng một RPC getBlockedSlots.
+ * block-time-service publish "block-time-changed" khi sửa block của một ngày (mỗi instance một consumer group).
+ */
+@Slf4j
+@Service
+public class BlockedSlotCacheServiceImpl implements BlockedSlotCacheService {
+    // Cửa sổ đặt lịch [0; 6] ngày
+    private static final int WINDOW_DAYS = 7;
+
+    @GrpcClient("block-time-grpc-server")
+    private BlockTimeServiceGrpc.BlockTimeServiceFutureStub blockTimeServiceFutureStub;
+
+    @Autowired
+    @Qualifier("grpcClientExecutor")
+    private ExecutorService grpcClientExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.grpc.deadline-ms:3000}")
+    private long grpcDeadlineMs;
+
+    @Value("${order.blocked-slot-cache.maximum-size:64}")
+    private long maximumSize;
+
+    @Value("${order.blocked-slot-cache.expire-after-write-ms:60000}")
+    private long expireAfterWriteMs;
+
+    private Cache<String, Integer> slotMasks;
+
+    // Tăng mỗi lần invalidate: kết quả load bắt đầu trước đó sẽ không được ghi vào cache
+    private final AtomicLong generation = new AtomicLong();
+
+    private final List<String> timeSlots = Utils.generateTimeSlots();
+
+    @PostConstruct
+    public void init() {
+        slotMasks = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, slotMasks, "blockedSlots");
+    }
+
+    @Override
+    public ListenableFuture<Boolean> isBlocked(String date, String time) {
+        // Bit j của mask = timeSlots[j]
+        int slot = timeSlots.indexOf(time);
+        if (slot < 0) {
+            return Futures.immediateFuture(false);
+        }
+
+        Integer cached = slotMasks.getIfPresent(date);
+        if (cached != null) {
+            return Futures.immediateFuture((cached & (1 << slot)) != 0);
+        }
+
+        LocalDate startDate = LocalDate.parse(date);
+        long loadGeneration = generation.get();
+        ListenableFuture<GetBlockedSlotsResponse> future = blockTimeServiceFutureStub
+                .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                .withExecutor(grpcClientExecutor)
+                .getBlockedSlots(GetBlockedSlotsRequest.newBuilder()
+                        .setStartDate(startDate.toString())
+                        .setEndDate(startDate.plusDays(WINDOW_DAYS - 1).toString())
+                        .build());
+        return Futures.transform(future, response -> {
+            LocalDate responseStartDate = LocalDate.parse(response.getStartDate());
+            if (loadGeneration == generation.get()) {
+                for (int i = 0; i < response.getSlotMasksCount(); i++) {
+                    slotMasks.put(responseStartDate.plusDays(i).toString(), response.getSlotMasks(i));
+                }
+            }
+            return response.getSlotMasksCount() > 0 && (response.getSlotMasks(0) & (1 << slot)) != 0;
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void invalidate(String date) {
+        generation.incrementAndGet();
+        slotMasks.invalidate(date);
+    }
+
+    @KafkaListener(
+            id = "handleBlockTimeChangedEvent",
+            groupId = "order-service-blocked-slot-cache-#{T(java.util.UUID).randomUUID()}",
+            idIsGroup = false,
+            topics = "block-time-changed"
+    )
+    public void handleBlockTimeChangedEvent(BlockTimeChangedEventRequest blockTimeChangedEventRequest) {
+        log.info("Invalidate blocked slots {}", blockTimeChangedEventRequest.getDate());
+        // Không có date: block lặp lại thay đổi, mọi ngày đều có thể bị ảnh hưởng
+        if (blockTimeChangedEventRequest.getDate() == null) {
+            generation.incrementAndGet();
+            slotMasks.invalidateAll();
+            return;
+        }
+        invalidate(blockTimeChangedEventRequest.getDate());
+    }
+}
@@ -0,0 +1,169 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.order_service.Utils.PendingOrderCodec;
+import barbershop.order_service.Utils.Utils;
+import barbershop.order_service.dtos.request.ChecksumEventRequest;
+import barbershop.order_service.entities.Order;
+import barbershop.order_service.enums.TimeZone;
+import barbershop.order_service.repositories.OrderRepository;
+import barbershop.order_service.services.BarberOccupancyService;
+import barbershop.order_service.services.ChecksumSettlementService;
+import barbershop.order_service.services.HairStyleBookingCounterService;
+import barbershop.common.outbox.OutboxService;
+import barbershop.order_service.services.RedisService;
+import barbershop.order_service.services.SlotReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import payment.PaymentServiceGrpc;
+import payment.SaveNewPaymentRequest;
+import payment.SaveNewPaymentResponse;
+import payment.SaveNewPaymentsRequest;
+import pendingOrder.PendingOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ChecksumSettlementServiceImpl implements ChecksumSettlementService {
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BarberOccupancyService barberOccupancyService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private HairStyleBookingCounterService hairStyleBookingCounterService;
+
+    @GrpcClient("payment-grpc-server")
+    private PaymentServiceGrpc.PaymentServiceBlockingStub paymentServiceBlockingStub;
+
+    @Override
+    @Transactional
+    public void settle(ChecksumEventRequest checksumEventRequest) throws Exception {
+        if (checksumEventRequest.getChecksum() != 1) {
+            return;
+        }
+        String orderUUID = checksumEventRequest.getOrderUUID();
+        PendingOrder pendingOrder = PendingOrderCodec.decode(redisService.getBytesValues(List.of(orderUUID)).get(0));
+        Map<String, Object> orderMap = PendingOrderCodec.toOrderMap(pendingOrder);
+        Order order = toOrder(pendingOrder, orderMap);
+
+        order = orderRepository.save(order);
+        orderRepository.incrementOrderStatsDaily(List.of(order.getId()));
+        barberOccupancyService.markOccupied(pendingOrder.getBarber().getId(), order.getSchedule());
+        slotReservationService.confirm(pendingOrder.getSchedule(), pendingOrder.getBarber().getId(), orderUUID);
+        hairStyleBookingCounterService.increment(pendingOrder.getHairStyle().getId());
+        orderMap.put("id", order.getId());
+
+        SaveNewPaymentResponse saveNewPaymentResponse = paymentServiceBlockingStub.saveNewPayment(
+                toSaveNewPaymentRequest(checksumEventRequest, pendingOrder, order.getId())
+        );
+
+        orderMap.put("bankCode", saveNewPaymentResponse.getBankCode());
+        orderMap.put("bankTranNo", saveNewPaymentResponse.getBankTranNo());
+
+        outboxService.publish("send-email-thank-for-order", objectMapper.writeValueAsString(orderMap));
+    }
+
+    // Cả batch trong một transaction: MGET Redis, JDBC batch insert, một RPC saveNewPayments
+    @Override
+    @Transactional
+    public void settleBatch(List<ChecksumEventRequest> checksumEventRequests) throws Exception {
+        List<ChecksumEventRequest> validRequests = new ArrayList<>();
+        List<String> orderUUIDs = new ArrayList<>();
+        for (ChecksumEventRequest checksumEventRequest : checksumEventRequests) {
+            if (checksumEventRequest.getChecksum() == 1) {
+                validRequests.add(checksumEventRequest);
+                orderUUIDs.add(checksumEventRequest.getOrderUUID());
+            }
+        }
+        if (validRequests.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> pendingOrderValues = redisService.getBytesValues(orderUUIDs);
+        List<PendingOrder> pendingOrders = new ArrayList<>();
+        List<Map<String, Object>> orderMaps = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (byte[] pendingOrderValue : pendingOrderValues) {
+            PendingOrder pendingOrder = PendingOrderCodec.decode(pendingOrderValue);
+            Map<String, Object> orderMap = PendingOrderCodec.toOrderMap(pendingOrder);
+            pendingOrders.add(pendingOrder);
+            orderMaps.add(orderMap);
+            orders.add(toOrder(pendingOrder, orderMap));
+        }
+
+        orderRepository.insertOrders(orders);
+        List<Integer> orderIds = new ArrayList<>();
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        orderRepository.incrementOrderStatsDaily(orderIds);
+
+        SaveNewPaymentsRequest.Builder saveNewPaymentsRequestBuilder = SaveNewPaymentsRequest.newBuilder();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            PendingOrder pendingOrder = pendingOrders.get(i);
+            barberOccupancyService.markOccupied(pendingOrder.getBarber().getId(), order.getSchedule());
+            slotReservationService.confirm(pendingOrder.getSchedule(), pendingOrder.getBarber().getId(), orderUUIDs.get(i));
+            hairStyleBookingCounterService.increment(pendingOrder.getHairStyle().getId());
+            orderMaps.get(i).put("id", order.getId());
+            saveNewPaymentsRequestBuilder.addPayments(toSaveNewPaymentRequest(validRequests.get(i), pendingOrder, order.getId()));
+        }
+
+        // RPC chạy trước khi transaction commit: nếu sau đó rollback (hoặc RPC timeout sau khi payment-service đã lưu)
+        // thì lần settle lại gửi cùng orderUUID, payment-service upsert theo orderUUID nên không tạo payment trùng
+        List<SaveNewPaymentResponse> saveNewPaymentResponses = paymentServiceBlockingStub
+                .saveNewPayments(saveNewPaymentsRequestBuilder.build())
+                .getPaymentsList();
+
+        for (int i = 0; i < orderMaps.size(); i++) {
+            Map<String, Object> orderMap = orderMaps.get(i);
+            orderMap.put("bankCode", saveNewPaymentResponses.get(i).getBankCode());
+            orderMap.put("bankTranNo", saveNewPaymentResponses.get(i).getBankTranNo());
+
+            outboxService.publish("send-email-thank-for-order", objectMapper.writeValueAsString(orderMap));
+        }
+    }
+
+    private Order toOrder(PendingOrder pendingOrder, Map<String, Object> orderMap) throws Exception {
+        return Order.builder()
+            .userId(pendingOrder.getUser().getId())
+            .orderTime(Utils.parseDate(pendingOrder.getOrderTime(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()))
+            .schedule(Utils.parseDate(pendingOrder.getSchedule(), "yyyy-MM-dd HH:mm", TimeZone.ASIA_HCM.value()))
+            .cutted(false)
+            .barber(objectMapper.writeValueAsString(orderMap.get("barber")))
+            .hairStyle(objectMapper.writeValueAsString(orderMap.get("hairStyle")))
+            .hairColor(orderMap.get("hairColor") == null ? "null" : objectMapper.writeValueAsString(orderMap.get("hairColor")))
+        .build();
+    }
+
+    private SaveNewPaymentRequest toSaveNewPaymentRequest(ChecksumEventRequest checksumEventRequest, PendingOrder pendingOrder, int orderId) {
+        return SaveNewPaymentRequest.newBuilder()
+                .setAmount(checksumEventRequest.getAmount())
+                .setOrderId(orderId)
+                .setOrderUUID(checksumEventRequest.getOrderUUID())
+                .setExternalRequest(checksumEventRequest.getExternalRequest())
+                .setPayOnlineType(checksumEventRequest.getPayOnlineType())
+                .setPaymentStatus(checksumEventRequest.getPaymentStatus())
+                .setHairStyleId(pendingOrder.getHairStyle().getId())
+                .setUserId(pendingOrder.getUser().getId())
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.order_service.dtos.request.CacheInvalidationEventRequest;
+import barbershop.order_service.services.HairDetailCacheService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import hairColor.GetDetailHairColorRequest;
+import hairColor.GetDetailHairColorResponse;
+import hairColor.HairColor;
+import hairColor.HairColorServiceGrpc;
+import hairStyle.GetDetailHairStyleRequest;
+import hairStyle.GetDetailHairStyleResponse;
+import hairStyle.HairStyle;
+import hairStyle.HairStyleServiceGrpc;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-cache giá hair style / hair color cho luồng đặt lịch.
+ * Entry bị xoá khi nhận event update qua Kafka (mỗi instance một consumer group để ai cũng nhận được).
+ */
+@Slf4j
+@Service
+public class HairDetailCacheServiceImpl implements HairDetailCacheService {
+    @GrpcClient("hair-style-grpc-server")
+    private HairStyleServiceGrpc.HairStyleServiceFutureStub hairStyleServiceFutureStub;
+
+    @GrpcClient("hair-color-grpc-server")
+    private HairColorServiceGrpc.HairColorServiceFutureStub hairColorServiceFutureStub;
+
+    @Autowired
+    @Qualifier("grpcClientExecutor")
+    private ExecutorService grpcClientExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.grpc.deadline-ms:3000}")
+    private long grpcDeadlineMs;
+
+    @Value("${order.hair-detail-cache.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${order.hair-detail-cache.expire-after-write-ms:60000}")
+    private long expireAfterWriteMs;
+
+    private Cache<Integer, HairStyle> hairStyles;
+
+    private Cache<Integer, HairColor> hairColors;
+
+    // Tăng mỗi lần invalidate: kết quả load bắt đầu trước đó sẽ không được ghi vào cache
+    private final AtomicLong hairStyleGeneration = new AtomicLong();
+
+    private final AtomicLong hairColorGeneration = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        hairStyles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        hairColors = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, hairStyles, "hairStyleDetail");
+        CaffeineCacheMetrics.monitor(meterRegistry, hairColors, "hairColorDetail");
+    }
+
+    @Override
+    public ListenableFuture<HairStyle> getHairStyle(int id) {
+        HairStyle cached = hairStyles.getIfPresent(id);
+        if (cached != null) {
+            return Futures.immediateFuture(cached);
+        }
+
+        long generation = hairStyleGeneration.get();
+        ListenableFuture<GetDetailHairStyleResponse> future = hairStyleServiceFutureStub
+                .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                .withExecutor(grpcClientExecutor)
+                .getDetailHairStyle(GetDetailHairStyleRequest.newBuilder().setId(id).build());
+        return Futures.transform(future, response -> {
+            HairStyle hairStyle = response.getHairStyle();
+            if (generation == hairStyleGeneration.get()) {
+                hairStyles.put(id, hairStyle);
+            }
+            return hairStyle;
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<HairColor> getHairColor(int id) {
+        HairColor cached = hairColors.getIfPresent(id);
+        if (cached != null) {
+            return Futures.immediateFuture(cached);
+        }
+
+        long generation = hairColorGeneration.get();
+        ListenableFuture<GetDetailHairColorResponse> future = hairColorServiceFutureStub
+                .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                .withExecutor(grpcClientExecutor)
+                .getDetailHairColor(GetDetailHairColorRequest.newBuilder().setId(id).build());
+        return Futures.transform(future, response -> {
+            HairColor hairColor = response.getHairColor();
+            if (generation == hairColorGeneration.get()) {
+                hairColors.put(id, hairColor);
+            }
+            return hairColor;
+        }, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void invalidateHairStyle(int id) {
+        hairStyleGeneration.incrementAndGet();
+        hairStyles.invalidate(id);
+    }
+
+    @Override
+    public void invalidateHairColor(int id) {
+        hairColorGeneration.incrementAndGet();
+        hairColors.invalidate(id);
+    }
+
+    @KafkaListener(
+            id = "handleHairStyleUpdatedEvent",
+            groupId = "order-service-hair-style-cache-#{T(java.util.UUID).randomUUID()}",
+            idIsGroup = false,
+            topics = "hair-style-updated"
+    )
+    public void handleHairStyleUpdatedEvent(CacheInvalidationEventRequest cacheInvalidationEventRequest) {
+        log.info("Invalidate hair style {}", cacheInvalidationEventRequest.getId());
+        invalidateHairStyle(cacheInvalidationEventRequest.getId());
+    }
+
+    @KafkaListener(
+            id = "handleHairColorUpdatedEvent",
+            groupId = "order-service-hair-color-cache-#{T(java.util.UUID).randomUUID()}",
+            idIsGroup = false,
+            topics = "hair-color-updated"
+    )
+    public void handleHairColorUpdatedEvent(CacheInvalidationEventRequest cacheInvalidationEventRequest) {
+        log.info("Invalidate hair color {}", cacheInvalidationEventRequest.getId());
+        invalidateHairColor(cacheInvalidationEventRequest.getId());
+    }
+}
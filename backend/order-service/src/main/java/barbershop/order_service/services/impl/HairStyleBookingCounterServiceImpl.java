@@ -0,0 +1,93 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.order_service.dtos.response.BaseResponse;
+import barbershop.order_service.repositories.OrderRepository;
+import barbershop.order_service.services.HairStyleBookingCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Mỗi instance chỉ giữ phần chênh lệch chưa flush, flush bằng "booking = booking + delta" nên nhiều replica cộng dồn đúng
+@Slf4j
+@Service
+public class HairStyleBookingCounterServiceImpl implements HairStyleBookingCounterService {
+    // Được thay bằng map mới khi rebuild
+    private volatile Map<Integer, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void increment(int hairStyleId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(hairStyleId, 1);
+                }
+            });
+            return;
+        }
+        add(hairStyleId, 1);
+    }
+
+    @Scheduled(fixedDelayString = "${order.hair-style-booking.flush-interval-ms:5000}")
+    @PreDestroy
+    @Override
+    public synchronized void flush() {
+        Map<Integer, Long> deltas = new HashMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : pendingDeltas.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Cả batch trong một transaction: lỗi giữa chừng thì rollback hết, trả lại toàn bộ chênh lệch không bị cộng trùng
+            transactionTemplate.executeWithoutResult(status -> orderRepository.addHairStyleBookingCounts(deltas));
+        } catch (Exception exception) {
+            // Trả lại phần chênh lệch để lần flush sau ghi tiếp
+            log.error("ERROR", exception);
+            deltas.forEach(this::add);
+        }
+    }
+
+    @Override
+    public synchronized BaseResponse rebuild() throws Exception {
+        // Tách phần chênh lệch chưa flush ra trước khi đếm lại: các order đó đã commit trước câu đếm nên đã nằm trong kết quả,
+        // đếm xong thì bỏ đi thay vì flush cộng thêm lần nữa. Chênh lệch đến sau (map mới) vẫn được flush bình thường.
+        // Chênh lệch chưa flush của các replica khác (tối đa một flush interval) vẫn có thể bị cộng trùng, chạy lại rebuild là hết.
+        Map<Integer, LongAdder> countedDeltas = pendingDeltas;
+        pendingDeltas = new ConcurrentHashMap<>();
+        Integer hairStyles;
+        try {
+            hairStyles = transactionTemplate.execute(status -> orderRepository.rebuildHairStyleBookingCounts());
+        } catch (Exception exception) {
+            // Đếm lại bị rollback: trả lại phần chênh lệch đã tách
+            countedDeltas.forEach((hairStyleId, delta) -> add(hairStyleId, delta.sum()));
+            throw exception;
+        }
+        return new BaseResponse(Map.of("hairStyles", hairStyles));
+    }
+
+    private void add(int hairStyleId, long delta) {
+        pendingDeltas.computeIfAbsent(hairStyleId, key -> new LongAdder()).add(delta);
+    }
+}
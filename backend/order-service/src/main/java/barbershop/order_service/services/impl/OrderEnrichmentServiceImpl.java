@@ -0,0 +1,204 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.order_service.Utils.BatchLoader;
+import barbershop.order_service.Utils.IntIndex;
+import barbershop.order_service.dtos.response.FieldErrorsResponse;
+import barbershop.order_service.entities.Order;
+import barbershop.order_service.services.OrderEnrichmentService;
+import barbershop.order_service.services.UserClientGrpcService;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import payment.GetListPaymentByOrderIdsRequest;
+import payment.Payment;
+import payment.PaymentServiceGrpc;
+import user.GetListUserByIdsAndKeyWordRequest;
+import user.GetListUserFeedbackByIdsRequest;
+import user.GetListUserIdsByKeywordRequest;
+import user.User;
+import user.UserFeedback;
+import user.UserServiceGrpc;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Gom khóa ngoại của cả trang, lookup qua BatchLoader (gộp với các request đồng thời) rồi index theo id để join O(n + m)
+@Service
+public class OrderEnrichmentServiceImpl implements OrderEnrichmentService {
+    @GrpcClient("user-grpc-server")
+    private UserServiceGrpc.UserServiceBlockingStub userServiceBlockingStub;
+
+    @GrpcClient("payment-grpc-server")
+    private PaymentServiceGrpc.PaymentServiceBlockingStub paymentServiceBlockingStub;
+
+    @Autowired
+    private UserClientGrpcService userClientGrpcService;
+
+    @Autowired
+    @Qualifier("batchLoaderScheduler")
+    private ScheduledExecutorService batchLoaderScheduler;
+
+    @Autowired
+    @Qualifier("batchLoaderExecutor")
+    private ExecutorService batchLoaderExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.batch-loader.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${order.batch-loader.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${order.grpc.deadline-ms:3000}")
+    private long grpcDeadlineMs;
+
+    // Thời gian tối đa request chờ kết quả batch (gồm cả thời gian gom và xếp hàng)
+    @Value("${order.batch-loader.load-timeout-ms:5000}")
+    private long loadTimeoutMs;
+
+    @Value("${order.keyword-search.page-size:1000}")
+    private int keywordPageSize;
+
+    @Value("${order.keyword-search.max-user-ids:10000}")
+    private int keywordMaxUserIds;
+
+    private BatchLoader<Payment> paymentLoader;
+
+    private BatchLoader<User> userLoader;
+
+    @PostConstruct
+    public void init() {
+        paymentLoader = new BatchLoader<>(
+                "payment",
+                orderIds -> paymentServiceBlockingStub
+                        .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                        .getListPaymentByOrderIds(
+                                GetListPaymentByOrderIdsRequest.newBuilder()
+                                        .addAllOrderIds(orderIds)
+                                        .build()
+                        ).getPaymentsList(),
+                Payment::getOrderId,
+                maxBatchSize,
+                maxWaitMs,
+                loadTimeoutMs,
+                batchLoaderScheduler,
+                batchLoaderExecutor,
+                meterRegistry
+        );
+        userLoader = new BatchLoader<>(
+                "user",
+                userIds -> userServiceBlockingStub
+                        .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                        .getListUserByIdsAndKeyWord(
+                                GetListUserByIdsAndKeyWordRequest.newBuilder()
+                                        .addAllIds(userIds)
+                                        .build()
+                        ).getUsersList(),
+                User::getId,
+                maxBatchSize,
+                maxWaitMs,
+                loadTimeoutMs,
+                batchLoaderScheduler,
+                batchLoaderExecutor,
+                meterRegistry
+        );
+    }
+
+    @Override
+    public IntIndex<Payment> indexPaymentsByOrderId(List<Order> orders) {
+        Set<Integer> orderIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        if (orderIds.isEmpty()) {
+            return IntIndex.of(List.of(), Payment::getOrderId);
+        }
+
+        return IntIndex.of(paymentLoader.loadAll(orderIds), Payment::getOrderId);
+    }
+
+    @Override
+    public IntIndex<User> indexUsersById(List<Order> orders) {
+        Set<Integer> userIds = collectUserIds(orders);
+        if (userIds.isEmpty()) {
+            return IntIndex.of(List.of(), User::getId);
+        }
+
+        return IntIndex.of(userLoader.loadAll(userIds), User::getId);
+    }
+
+    @Override
+    public IntIndex<UserFeedback> indexUserFeedbacksById(List<Order> orders) {
+        Set<Integer> userIds = collectUserIds(orders);
+        if (userIds.isEmpty()) {
+            return IntIndex.of(List.of(), UserFeedback::getId);
+        }
+
+        List<UserFeedback> userFeedbacks = userClientGrpcService.getListUserFeedbackByIds(
+                GetListUserFeedbackByIdsRequest.newBuilder()
+                        .addAllIds(userIds)
+                        .build()
+        ).getUserFeedbacksList();
+
+        return IntIndex.of(userFeedbacks, UserFeedback::getId);
+    }
+
+    // Lấy hết user id khớp keyword theo từng trang (id tăng dần), quá keywordMaxUserIds thì báo lỗi
+    // thay vì trả kết quả thiếu
+    @Override
+    public List<Integer> findUserIdsByKeyword(String keyword, String resource) throws FieldErrorsResponse {
+        List<Integer> userIds = new ArrayList<>();
+        if (keyword == null || keyword.isEmpty()) {
+            return userIds;
+        }
+
+        int afterId = 0;
+        while (true) {
+            List<Integer> page = userServiceBlockingStub
+                    .withDeadlineAfter(grpcDeadlineMs, TimeUnit.MILLISECONDS)
+                    .getListUserIdsByKeyword(
+                            GetListUserIdsByKeywordRequest.newBuilder()
+                                    .setKeyword(keyword)
+                                    .setAfterId(afterId)
+                                    .setLimit(keywordPageSize)
+                                    .build()
+                    ).getIdsList();
+            userIds.addAll(page);
+            if (userIds.size() > keywordMaxUserIds) {
+                throw FieldErrorsResponse
+                        .builder()
+                        .errors(List.of(
+                                FieldErrorsResponse.FieldError.builder()
+                                        .field("keyword")
+                                        .message("Keyword matches more than " + keywordMaxUserIds + " users, please use a more specific keyword")
+                                        .resource(resource)
+                                        .build()
+                        ))
+                        .build();
+            }
+            if (page.size() < keywordPageSize) {
+                return userIds;
+            }
+            afterId = page.get(page.size() - 1);
+        }
+    }
+
+    private Set<Integer> collectUserIds(List<Order> orders) {
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            userIds.add(order.getUserId());
+        }
+        return userIds;
+    }
+}
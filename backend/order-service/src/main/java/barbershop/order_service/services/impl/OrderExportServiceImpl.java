@@ -0,0 +1,219 @@
+package barbershop.order_service.services.impl;
+
+import barbershop.order_service.Utils.IntIndex;
+import barbershop.order_service.Utils.Utils;
+import barbershop.order_service.dtos.request.admin.ExportOrderForAdminRequest;
+import barbershop.order_service.dtos.response.FieldErrorsResponse;
+import barbershop.order_service.entities.HairColorSnapshot;
+import barbershop.order_service.entities.Order;
+import barbershop.order_service.enums.TimeZone;
+import barbershop.order_service.repositories.OrderRepository;
+import barbershop.order_service.services.OrderEnrichmentService;
+import barbershop.order_service.services.OrderExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import payment.Payment;
+import user.User;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+    private static final String CSV_HEADER = "id,username,email,hairStyle,hairColor,hairColorCode,orderTime,schedule,paymentType,amount,cutted";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEnrichmentService orderEnrichmentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Số order mỗi lần enrich, không nên vượt order.batch-loader.max-batch-size
+    @Value("${order.export.chunk-size:200}")
+    private int chunkSize;
+
+    @Override
+    public void exportOrderForAdmin(ExportOrderForAdminRequest exportOrderForAdminRequest, HttpServletResponse response) throws Exception {
+        boolean ndjson = validateExportRequest(exportOrderForAdminRequest);
+
+        int orderId = 0;
+        String keyword = exportOrderForAdminRequest.getKeyword();
+        try {
+            orderId = Integer.parseInt(keyword.split("BBSOD")[1].trim());
+        } catch (Exception exception) {
+            try {
+                orderId = Integer.parseInt(keyword.trim());
+            } catch (Exception exception1) {}
+        }
+
+        List<Integer> keywordUserIds = orderEnrichmentService.findUserIdsByKeyword(keyword, "ExportOrderForAdminRequest");
+
+        String fileName = "orders_" + exportOrderForAdminRequest.getRange().replace(",", "_").replace(" ", "") + (ndjson ? ".ndjson" : ".csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(ndjson ? "application/x-ndjson" : "text/csv");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (!ndjson) {
+            // BOM để Excel đọc đúng tiếng Việt
+            writer.write('\uFEFF');
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        orderRepository.streamOrderForAdmin(exportOrderForAdminRequest, orderId, keywordUserIds, chunkSize, orders -> {
+            IntIndex<Payment> paymentIndex = orderEnrichmentService.indexPaymentsByOrderId(orders);
+            IntIndex<User> userIndex = orderEnrichmentService.indexUsersById(orders);
+            try {
+                for (Order order : orders) {
+                    if (ndjson) {
+                        writer.write(objectMapper.writeValueAsString(toOrderMap(order, userIndex.get(order.getUserId()), paymentIndex.get(order.getId()))));
+                    } else {
+                        writer.write(toCsvLine(order, userIndex.get(order.getUserId()), paymentIndex.get(order.getId())));
+                    }
+                    writer.write('\n');
+                }
+                // Đẩy chunk xuống client, không giữ lại trong buffer
+                writer.flush();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+        writer.flush();
+    }
+
+    // Trả về true nếu format là ndjson
+    private boolean validateExportRequest(ExportOrderForAdminRequest exportOrderForAdminRequest) throws FieldErrorsResponse {
+        String sortBy = exportOrderForAdminRequest.getSortBy();
+        if (sortBy != null && !sortBy.matches("^(asc|desc)$")) {
+            throw fieldErrors("sort by", "Sort by must be asc or desc");
+        }
+
+        String format = exportOrderForAdminRequest.getFormat();
+        if (format != null && !format.matches("^(csv|ndjson)$")) {
+            throw fieldErrors("format", "Format must be csv or ndjson");
+        }
+
+        String range = exportOrderForAdminRequest.getRange();
+        if (range == null || range.isEmpty()) {
+            throw fieldErrors("range", "Range is not empty");
+        }
+        if (range.split(",").length != 2) {
+            throw fieldErrors("range", "Invalid range format");
+        }
+        Date startDate = Utils.parseDate(range.split(",")[0].trim()+" 00:00:00", "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value());
+        Date endDate = Utils.parseDate(range.split(",")[1].trim()+" 00:00:00", "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value());
+        if (startDate == null) {
+            throw fieldErrors("start date", "Invalid range: invalid start date");
+        }
+        if (endDate == null) {
+            throw fieldErrors("end date", "Invalid range: invalid end date");
+        }
+        if (startDate.getTime() > endDate.getTime()) {
+            throw fieldErrors("start date", "Invalid range: start date must be less than or equals end date");
+        }
+
+        return "ndjson".equals(format);
+    }
+
+    private FieldErrorsResponse fieldErrors(String field, String message) {
+        List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
+        listFieldErrors.add(
+                FieldErrorsResponse.FieldError.builder()
+                        .field(field)
+                        .message(message)
+                        .resource("ExportOrderForAdminRequest")
+                        .build()
+        );
+        return FieldErrorsResponse
+                .builder()
+                .errors(listFieldErrors)
+                .build();
+    }
+
+    // Cùng cấu trúc với một phần tử của /admin/order-and-payment
+    private Map<String, Object> toOrderMap(Order order, User user, Payment payment) {
+        Map<String, Object> orderMap = new LinkedHashMap<>();
+        orderMap.put("id", order.getId());
+        Map<String, Object> userMap = new LinkedHashMap<>();
+        userMap.put("username", user == null ? null : user.getUsername());
+        userMap.put("email", user == null ? null : user.getEmail());
+        orderMap.put("user", userMap);
+        orderMap.put("hairStyle", order.getHairStyleSnapshot().getName());
+        HairColorSnapshot hairColorSnapshot = order.getHairColorSnapshot();
+        if (hairColorSnapshot != null) {
+            orderMap.put("hairColor", Map.of("colorCode", hairColorSnapshot.getColorCode(), "color", hairColorSnapshot.getColor()));
+        }
+        orderMap.put("orderTime", Utils.toDateStringWithFormatAndTimezone(order.getOrderTime(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()));
+        orderMap.put("schedule", Utils.toDateStringWithFormatAndTimezone(order.getSchedule(), "yyyy-MM-dd HH:mm", TimeZone.ASIA_HCM.value()));
+        orderMap.put("paymentType", payment == null ? null : payment.getType());
+        orderMap.put("amount", payment == null ? null : payment.getAmount());
+        orderMap.put("cutted", order.isCutted());
+        return orderMap;
+    }
+
+    private String toCsvLine(Order order, User user, Payment payment) {
+        HairColorSnapshot hairColorSnapshot = order.getHairColorSnapshot();
+        List<String> values = Arrays.asList(
+                String.valueOf(order.getId()),
+                user == null ? "" : formulaSafe(user.getUsername()),
+                user == null ? "" : formulaSafe(user.getEmail()),
+                formulaSafe(order.getHairStyleSnapshot().getName()),
+                hairColorSnapshot == null ? "" : formulaSafe(hairColorSnapshot.getColor()),
+                hairColorSnapshot == null ? "" : formulaSafe(hairColorSnapshot.getColorCode()),
+                Utils.toDateStringWithFormatAndTimezone(order.getOrderTime(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()),
+                Utils.toDateStringWithFormatAndTimezone(order.getSchedule(), "yyyy-MM-dd HH:mm", TimeZone.ASIA_HCM.value()),
+                payment == null ? "" : payment.getType(),
+                payment == null ? "" : String.valueOf(payment.getAmount()),
+                String.valueOf(order.isCutted())
+        );
+
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(escapeCsv(values.get(i)));
+        }
+        return line.toString();
+    }
+
+    // Giá trị do user / admin nhập: file có BOM để mở bằng Excel, ô bắt đầu bằng = + - @ tab CR sẽ thành công thức
+    // (CSV injection), thêm ' phía trước để Excel hiểu là text
+    private String formulaSafe(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
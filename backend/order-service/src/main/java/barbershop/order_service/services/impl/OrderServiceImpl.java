@@ -1,9 +1,8 @@
 package barbershop.order_service.services.impl;
 
 import barber.Barber;
-import barber.BarberServiceGrpc;
-import barber.GetAllBarberRequest;
-import barber.GetDetailBarberRequest;
+import barbershop.order_service.Utils.IntIndex;
+import barbershop.order_service.Utils.PendingOrderCodec;
 import barbershop.order_service.Utils.Utils;
 import barbershop.order_service.dtos.request.FindOrderInfoRequest;
 import barbershop.order_service.dtos.request.GetListOrderByUserRequest;
@@ -13,37 +12,39 @@ import barbershop.order_service.dtos.request.admin.GetListOrderForAdminRequest;
 import barbershop.order_service.dtos.response.BaseResponse;
 import barbershop.order_service.dtos.response.FieldErrorsResponse;
 import barbershop.order_service.dtos.response.PaginationResponse;
+import barbershop.order_service.entities.HairColorSnapshot;
 import barbershop.order_service.entities.Order;
 import barbershop.order_service.enums.TimeZone;
 import barbershop.order_service.exception.ResourceNotFoundException;
 import barbershop.order_service.repositories.OrderRepository;
+import barbershop.order_service.services.BarberCatalogService;
+import barbershop.order_service.services.BarberOccupancyService;
+import barbershop.order_service.services.BlockedSlotCacheService;
+import barbershop.order_service.services.HairDetailCacheService;
+import barbershop.order_service.services.OrderEnrichmentService;
 import barbershop.order_service.services.OrderService;
 import barbershop.order_service.services.RedisService;
-import block_time.BlockTimeServiceGrpc;
-import block_time.CheckBlockTimeRequest;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import barbershop.order_service.services.SlotReservationService;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import hairColor.GetDetailHairColorRequest;
 import hairColor.HairColor;
-import hairColor.HairColorServiceGrpc;
-import hairStyle.GetDetailHairStyleRequest;
 import hairStyle.HairStyle;
-import hairStyle.HairStyleServiceGrpc;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import payment.*;
-import user.GetListUserByIdsAndKeyWordRequest;
+import pendingOrder.PendingOrder;
 import user.User;
 import user.UserServiceGrpc;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -51,20 +52,11 @@ public class OrderServiceImpl implements OrderService {
     @GrpcClient("user-grpc-server")
     private UserServiceGrpc.UserServiceBlockingStub userServiceBlockingStub;
 
-    @GrpcClient("block-time-grpc-server")
-    private BlockTimeServiceGrpc.BlockTimeServiceBlockingStub blockTimeServiceBlockingStub;
-
-    @GrpcClient("barber-grpc-server")
-    private BarberServiceGrpc.BarberServiceBlockingStub barberServiceBlockingStub;
-
     @GrpcClient("payment-grpc-server")
     private PaymentServiceGrpc.PaymentServiceBlockingStub paymentServiceBlockingStub;
 
-    @GrpcClient("hair-style-grpc-server")
-    private HairStyleServiceGrpc.HairStyleServiceBlockingStub hairStyleServiceBlockingStub;
-
-    @GrpcClient("hair-color-grpc-server")
-    private HairColorServiceGrpc.HairColorServiceBlockingStub hairColorServiceBlockingStub;
+    @Value("${order.pending-order.ttl-ms:1800000}")
+    private long pendingOrderTtlMs;
 
     @Autowired
     private OrderRepository orderRepository;
@@ -72,6 +64,24 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private RedisService redisService;
 
+    @Autowired
+    private BarberOccupancyService barberOccupancyService;
+
+    @Autowired
+    private BarberCatalogService barberCatalogService;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private HairDetailCacheService hairDetailCacheService;
+
+    @Autowired
+    private BlockedSlotCacheService blockedSlotCacheService;
+
+    @Autowired
+    private OrderEnrichmentService orderEnrichmentService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -120,70 +130,108 @@ public class OrderServiceImpl implements OrderService {
                     .errors(listFieldErrors)
                     .build();
         }
-
-        boolean isBlocked = blockTimeServiceBlockingStub.checkBlockTime(CheckBlockTimeRequest.newBuilder()
-                .setDate(findOrderInfoRequest.getDate())
-                .setTime(findOrderInfoRequest.getTime())
-                .build()
-        ).getIsBlocked();
-
-        if (isBlocked) {
-            listFieldErrors.add(
-                    FieldErrorsResponse.FieldError.builder()
-                            .field("date; time")
-                            .message("Date and time is blocked")
-                            .resource("FindBarberRequest")
-                            .build()
-            );
-            throw FieldErrorsResponse
-                    .builder()
-                    .errors(listFieldErrors)
-                    .build();
-        }
     }
 
     @Override
     public BaseResponse findOrderInfo(FindOrderInfoRequest findOrderInfoRequest) throws Exception {
-        checkValidDateAndTimeRequest(findOrderInfoRequest);
-        List<Barber> barbers = barberServiceBlockingStub.getAllBarber(GetAllBarberRequest.newBuilder().build()).getDataList();
-        List<Integer> barberIds = new ArrayList<>();
-        for (Barber barber : barbers) {
-            barberIds.add(barber.getId());
+        PendingOrder pendingOrder = findPendingOrder(findOrderInfoRequest, null);
+        if (pendingOrder == null) {
+            return new BaseResponse(null);
         }
-        barberIds = orderRepository.findBarberIds(barberIds);
 
-        if (barberIds.size() == 0) {
-            return new BaseResponse(null);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("barber", PendingOrderCodec.toBarberMap(pendingOrder.getBarber()));
+        map.put("hairStyle", PendingOrderCodec.toHairStyleMap(pendingOrder.getHairStyle()));
+        map.put("user", findOrderInfoRequest.getUser());
+        if (pendingOrder.hasHairColor()) {
+            map.put("hairColor", PendingOrderCodec.toHairColorMap(pendingOrder.getHairColor()));
         }
+        map.put("amount", pendingOrder.getAmount());
+
+        return new BaseResponse(map);
+    }
+
+    // Barber, hair style, hair color và amount của order (chưa có user, schedule); null nếu hết barber.
+    // Có orderUUID thì giữ slot của barber trong Redis cho order đó, không giữ được thì coi như hết barber.
+    private PendingOrder findPendingOrder(FindOrderInfoRequest findOrderInfoRequest, String orderUUID) throws Exception {
+        checkValidDateAndTimeRequest(findOrderInfoRequest);
+
+        // Các lookup không phụ thuộc nhau nên gọi song song, mỗi call có deadline riêng
+        ListenableFuture<Boolean> blockTimeFuture = blockedSlotCacheService.isBlocked(
+                findOrderInfoRequest.getDate(),
+                findOrderInfoRequest.getTime()
+        );
+        ListenableFuture<HairStyle> hairStyleFuture = hairDetailCacheService.getHairStyle(findOrderInfoRequest.getHairStyleId());
+        ListenableFuture<HairColor> hairColorFuture = findOrderInfoRequest.getHairColorId() == 0
+                ? null
+                : hairDetailCacheService.getHairColor(findOrderInfoRequest.getHairColorId());
 
-        int barberId = barberIds.get(0);
-        Barber barber = null;
-        for (Barber b : barbers) {
-            if (b.getId() == barberId && b.getActive()) {
-                barber = b;
+        List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
+        try {
+            if (awaitGrpc(blockTimeFuture)) {
+                listFieldErrors.add(
+                        FieldErrorsResponse.FieldError.builder()
+                                .field("date; time")
+                                .message("Date and time is blocked")
+                                .resource("FindBarberRequest")
+                                .build()
+                );
+                throw FieldErrorsResponse
+                        .builder()
+                        .errors(listFieldErrors)
+                        .build();
             }
-        }
 
-        if (barber == null) {
-            return new BaseResponse(null);
+            List<Barber> freeBarbers = barberOccupancyService.findFreeBarbers(
+                    barberCatalogService.getAllBarbers(),
+                    findOrderInfoRequest.getDate(),
+                    findOrderInfoRequest.getTime()
+            );
+
+            if (freeBarbers.isEmpty()) {
+                return null;
+            }
+
+            // Chờ hair style, hair color trước khi giữ slot để lỗi lookup không để lại slot bị giữ
+            PendingOrder.Builder pendingOrderBuilder = buildPendingOrder(hairStyleFuture, hairColorFuture);
+
+            Barber barber = freeBarbers.get(0);
+            if (orderUUID != null) {
+                barber = slotReservationService.reserve(
+                        freeBarbers,
+                        findOrderInfoRequest.getDate(),
+                        findOrderInfoRequest.getTime(),
+                        orderUUID
+                );
+                if (barber == null) {
+                    return null;
+                }
+            }
+
+            return pendingOrderBuilder.setBarber(toBarberSnapshot(barber)).build();
+        } finally {
+            // Không cần kết quả nữa (blocked, hết barber hoặc lỗi) thì huỷ các call còn đang chạy
+            hairStyleFuture.cancel(true);
+            if (hairColorFuture != null) {
+                hairColorFuture.cancel(true);
+            }
         }
+    }
 
+    private PendingOrder.Builder buildPendingOrder(
+            ListenableFuture<HairStyle> hairStyleFuture,
+            ListenableFuture<HairColor> hairColorFuture
+    ) throws Exception {
         // find hairStyle and hairColor
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
         HairStyle hairStyle = null;
         HairColor hairColor = null;
-        Map<String, Object> hairStyleMap = new LinkedHashMap<>();
-        Map<String, Object> hairColorMap = new LinkedHashMap<>();
 
         try {
-            hairStyle = hairStyleServiceBlockingStub.getDetailHairStyle(GetDetailHairStyleRequest.newBuilder()
-                    .setId(findOrderInfoRequest.getHairStyleId())
-                    .build()).getHairStyle();
-
-            if (findOrderInfoRequest.getHairColorId() != 0) {
-                hairColor = hairColorServiceBlockingStub.getDetailHairColor(GetDetailHairColorRequest.newBuilder()
-                        .setId(findOrderInfoRequest.getHairColorId())
-                        .build()).getHairColor();
+            hairStyle = awaitGrpc(hairStyleFuture);
+
+            if (hairColorFuture != null) {
+                hairColor = awaitGrpc(hairColorFuture);
             }
         } catch (Exception exception) {
             log.error("ERROR", exception);
@@ -201,29 +249,13 @@ public class OrderServiceImpl implements OrderService {
         }
 
         int amount = hairStyle.getPrice();
-
-        hairStyleMap.put("id", hairStyle.getId());
-        hairStyleMap.put("name", hairStyle.getName());
-        hairStyleMap.put("price", hairStyle.getPrice());
-        hairStyleMap.put("active", hairStyle.getActive());
-        if (hairStyle.getDiscount() != null) {
-            Map<String, Object> discountMap = new LinkedHashMap<>();
-            discountMap.put("unit", hairStyle.getDiscount().getUnit());
-            discountMap.put("value", hairStyle.getDiscount().getValue());
-            hairStyleMap.put("discount", discountMap);
-            if (hairStyle.getDiscount().getUnit().equals("%")) {
-                amount = amount * (100 - hairStyle.getDiscount().getValue()) / 100;
-            } else {
-                amount = amount - hairStyle.getDiscount().getValue();
-            }
+        if (hairStyle.getDiscount().getUnit().equals("%")) {
+            amount = amount * (100 - hairStyle.getDiscount().getValue()) / 100;
+        } else {
+            amount = amount - hairStyle.getDiscount().getValue();
         }
 
         if (hairColor != null) {
-            hairColorMap.put("id", hairColor.getId());
-            hairColorMap.put("color", hairColor.getColor());
-            hairColorMap.put("price", hairColor.getPrice());
-            hairColorMap.put("active", hairColor.getActive());
-            hairColorMap.put("colorCode", hairColor.getColorCode());
             amount = amount + hairColor.getPrice();
         }
 
@@ -231,23 +263,41 @@ public class OrderServiceImpl implements OrderService {
             amount = 0;
         }
 
-        Map<String, Object> barberMap = new LinkedHashMap<>();
-        barberMap.put("id", barber.getId());
-        barberMap.put("name", barber.getName());
-        barberMap.put("avatar", barber.getImg());
-        barberMap.put("active", barber.getActive());
-
-        Map<String, Object> map = new LinkedHashMap<>();
-        map.put("barber", barberMap);
-        map.put("hairStyle", hairStyleMap);
-        map.put("user", findOrderInfoRequest.getUser());
+        // Chỉ giữ các field nằm trong snapshot của order
+        PendingOrder.Builder pendingOrderBuilder = PendingOrder.newBuilder()
+                .setHairStyle(HairStyle.newBuilder()
+                        .setId(hairStyle.getId())
+                        .setName(hairStyle.getName())
+                        .setPrice(hairStyle.getPrice())
+                        .setActive(hairStyle.getActive())
+                        .setDiscount(hairStyle.getDiscount())
+                        .build())
+                .setAmount(amount);
         if (hairColor != null) {
-            map.put("hairColor", hairColorMap);
+            pendingOrderBuilder.setHairColor(hairColor);
         }
-        map.put("amount", amount);
 
-        BaseResponse baseResponse = new BaseResponse(map);
-        return baseResponse;
+        return pendingOrderBuilder;
+    }
+
+    private Barber toBarberSnapshot(Barber barber) {
+        return Barber.newBuilder()
+                .setId(barber.getId())
+                .setName(barber.getName())
+                .setImg(barber.getImg())
+                .setActive(barber.getActive())
+                .build();
+    }
+
+    private <T> T awaitGrpc(ListenableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof Exception) {
+                throw (Exception) exception.getCause();
+            }
+            throw exception;
+        }
     }
 
     @Transactional
@@ -269,38 +319,59 @@ public class OrderServiceImpl implements OrderService {
                     .build();
         }
 
-        Map<String, Object> orderInfoMap = (Map<String, Object>) findOrderInfo(FindOrderInfoRequest.builder()
+        String orderUUID = UUID.randomUUID().toString();
+        PendingOrder pendingOrder = findPendingOrder(FindOrderInfoRequest.builder()
                 .date(paymentRequest.getDate())
                 .time(paymentRequest.getTime())
                 .hairStyleId(paymentRequest.getHairStyleId())
                 .hairColorId(paymentRequest.getHairColorId())
-                .build()).getData();
-
-        Map<String, Object> barberMap = (Map<String, Object>) orderInfoMap.get("barber");
-        Map<String, Object> hairStyleMap = (Map<String, Object>) orderInfoMap.get("hairStyle");
-        Map<String, Object> hairColorMap = (Map<String, Object>) orderInfoMap.get("hairColor");
-        int amount = (int) orderInfoMap.get("amount");
+                .build(), orderUUID);
+        if (pendingOrder == null) {
+            listFieldErrors.add(
+                    FieldErrorsResponse.FieldError.builder()
+                            .field("date; time")
+                            .message("No barber available")
+                            .resource("PaymentRequest")
+                            .build()
+            );
+            throw FieldErrorsResponse
+                    .builder()
+                    .errors(listFieldErrors)
+                    .build();
+        }
 
-        Map<String, Object> orderMap = new LinkedHashMap<>();
-        orderMap.put("user", paymentRequest.getUser());
-        orderMap.put("schedule", paymentRequest.getDate()+" "+paymentRequest.getTime());
-        orderMap.put("cutted", false);
-        orderMap.put("barber", barberMap);
-        orderMap.put("hairStyle", hairStyleMap);
-        orderMap.put("hairColor", hairColorMap);
-        orderMap.put("orderTime", Utils.toDateStringWithFormatAndTimezone(new Date(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()));
-        orderMap.put("amount", amount);
-        orderMap.put("status", "Success");
-        orderMap.put("paymentType", paymentRequest.getPaymentType());
+        Map<String, Object> userMap = paymentRequest.getUser();
+        pendingOrder = pendingOrder.toBuilder()
+                .setUser(User.newBuilder()
+                        .setId((int) userMap.get("id"))
+                        .setUsername(Objects.toString(userMap.get("username"), ""))
+                        .setEmail(Objects.toString(userMap.get("email"), ""))
+                        .setAvatar(Objects.toString(userMap.get("avatar"), ""))
+                        .setAddress(Objects.toString(userMap.get("address"), ""))
+                        .setPhone(Objects.toString(userMap.get("phone"), ""))
+                        .setRole(Objects.toString(userMap.get("role"), ""))
+                        .setGender(Objects.toString(userMap.get("gender"), ""))
+                        .build())
+                .setSchedule(paymentRequest.getDate()+" "+paymentRequest.getTime())
+                .setOrderTime(Utils.toDateStringWithFormatAndTimezone(new Date(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()))
+                .setPaymentType(paymentRequest.getPaymentType())
+                .build();
+        int amount = pendingOrder.getAmount();
 
-        String orderUUID = UUID.randomUUID().toString();
-        redisService.setValue(orderUUID, objectMapper.writeValueAsString(orderMap), 1800000, TimeUnit.MILLISECONDS);
+        TransactionResponse transactionResponse;
+        try {
+            redisService.setBytes(orderUUID, PendingOrderCodec.encode(pendingOrder), pendingOrderTtlMs, TimeUnit.MILLISECONDS);
 
-        TransactionResponse transactionResponse = paymentServiceBlockingStub.transaction(TransactionRequest.newBuilder()
-                        .setOrderUUID(orderUUID)
-                        .setPaymentType(paymentRequest.getPaymentType())
-                        .setAmount(amount)
-                .build());
+            transactionResponse = paymentServiceBlockingStub.transaction(TransactionRequest.newBuilder()
+                            .setOrderUUID(orderUUID)
+                            .setPaymentType(paymentRequest.getPaymentType())
+                            .setAmount(amount)
+                    .build());
+        } catch (Exception exception) {
+            // Không tạo được giao dịch thì trả slot lại cho request khác
+            slotReservationService.release(paymentRequest.getDate(), paymentRequest.getTime(), pendingOrder.getBarber().getId(), orderUUID);
+            throw exception;
+        }
 
         return new BaseResponse(Map.of("paymentUrl", transactionResponse.getPaymentUrl()));
     }
@@ -343,27 +414,17 @@ public class OrderServiceImpl implements OrderService {
         );
 
         List<Map<String, Object>> orderMapList = new ArrayList<>();
-        List<Integer> orderIds = new ArrayList<>();
-        for (Order order : orders) {
-            orderIds.add(order.getId());
-        }
-
-        List<Payment> paymentGrpcs = (paymentServiceBlockingStub.getListPaymentByOrderIds(
-                GetListPaymentByOrderIdsRequest.newBuilder()
-                        .addAllOrderIds(orderIds)
-                        .build()
-        )).getPaymentsList();
+        IntIndex<Payment> paymentIndex = orderEnrichmentService.indexPaymentsByOrderId(orders);
 
         for (Order order : orders) {
             Map<String, Object> orderMap = new LinkedHashMap<>();
             orderMap.put("id", order.getId());
-            Map<String, Object> hairStyleMap = objectMapper.readValue(order.getHairStyle(), LinkedHashMap.class);
-            Map<String, Object> hairColorMap = objectMapper.readValue(order.getHairColor(), LinkedHashMap.class);
-            orderMap.put("hairStyle", hairStyleMap.get("name"));
-            if (hairColorMap != null) {
-                orderMap.put("hairColor", Map.of("colorCode", hairColorMap.get("colorCode"), "color", hairColorMap.get("color")));
+            orderMap.put("hairStyle", order.getHairStyleSnapshot().getName());
+            HairColorSnapshot hairColorSnapshot = order.getHairColorSnapshot();
+            if (hairColorSnapshot != null) {
+                orderMap.put("hairColor", Map.of("colorCode", hairColorSnapshot.getColorCode(), "color", hairColorSnapshot.getColor()));
             }
-            Payment paymentGrpc = findPaymentGrpcByOrderId(paymentGrpcs, order.getId());
+            Payment paymentGrpc = paymentIndex.get(order.getId());
             orderMap.put("orderTime", Utils.toDateStringWithFormatAndTimezone(order.getOrderTime(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()));
             orderMap.put("paymentType", paymentGrpc.getType());
             orderMap.put("amount", paymentGrpc.getAmount());
@@ -385,15 +446,6 @@ public class OrderServiceImpl implements OrderService {
         return paginationResponse;
     }
 
-    private Payment findPaymentGrpcByOrderId(List<Payment> paymentGrpcs, int orderId) {
-        for (Payment paymentGrpc: paymentGrpcs) {
-            if (paymentGrpc.getOrderId() == orderId) {
-                return paymentGrpc;
-            }
-        }
-        return null;
-    }
-
     @Override
     public BaseResponse getOrderById(String orderIdString, Map<String, Object> user) throws Exception {
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
@@ -434,27 +486,17 @@ public class OrderServiceImpl implements OrderService {
             throw new ResourceNotFoundException("Order not found");
         }
 
-        Payment payment = findPaymentGrpcByOrderId(
-                paymentServiceBlockingStub.getListPaymentByOrderIds(
-                        GetListPaymentByOrderIdsRequest.newBuilder()
-                                .addAllOrderIds(List.of(order.getId()))
-                                .build()
-                ).getPaymentsList(),
-                order.getId()
-        );
+        Payment payment = orderEnrichmentService.indexPaymentsByOrderId(List.of(order)).get(order.getId());
 
         Map<String, Object> orderMap = new LinkedHashMap<>();
         Map<String, Object> hairStyleMap = objectMapper.readValue(order.getHairStyle(), LinkedHashMap.class);
         Map<String, Object> hairColorMap = objectMapper.readValue(order.getHairColor(), LinkedHashMap.class);
         Map<String, Object> barberMap = objectMapper.readValue(order.getBarber(), LinkedHashMap.class);
 
-        Barber barber = barberServiceBlockingStub.getDetailBarber(
-                GetDetailBarberRequest.newBuilder()
-                        .setId((int) barberMap.get("id"))
-                        .build()
-        ).getBarber();
-
-        barberMap.put("avatar", barber.getImg());
+        Barber barber = barberCatalogService.getBarber((int) barberMap.get("id"));
+        if (barber != null) {
+            barberMap.put("avatar", barber.getImg());
+        }
 
         orderMap.put("id", order.getId());
         orderMap.put("amount", payment.getAmount());
@@ -507,11 +549,71 @@ public class OrderServiceImpl implements OrderService {
                 yyyyPrevious
         );
 
-        return new BaseResponse(Map.of(
-                "yyyyMM", statisticQuantityRequest.getYear()+"-"+statisticQuantityRequest.getMonth(),
-                "quantityCurrent", quantityCurrent,
-                "quantityPrevious", quantityPrevious
-        ));
+        Map<String, Object> statisticMap = new LinkedHashMap<>();
+        statisticMap.put("yyyyMM", statisticQuantityRequest.getYear()+"-"+statisticQuantityRequest.getMonth());
+        statisticMap.put("quantityCurrent", quantityCurrent);
+        statisticMap.put("quantityPrevious", quantityPrevious);
+
+        String range = statisticQuantityRequest.getRange();
+        if (range != null && !range.isEmpty()) {
+            String[] rangeParts = range.split(",");
+            Date startDate = rangeParts.length == 2 ? Utils.parseDate(rangeParts[0].trim()+" 00:00:00", "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()) : null;
+            Date endDate = rangeParts.length == 2 ? Utils.parseDate(rangeParts[1].trim()+" 00:00:00", "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()) : null;
+            if (startDate == null || endDate == null || startDate.getTime() > endDate.getTime()) {
+                listFieldErrors.add(
+                        FieldErrorsResponse.FieldError.builder()
+                                .field("range")
+                                .message("Invalid range format")
+                                .resource("StatisticQuantityRequest")
+                                .build()
+                );
+                throw FieldErrorsResponse
+                        .builder()
+                        .errors(listFieldErrors)
+                        .build();
+            }
+            statisticMap.put("range", range);
+            statisticMap.put("quantityRange", this.orderRepository.statisticQuantityBetween(
+                    rangeParts[0].trim(),
+                    rangeParts[1].trim()
+            ));
+        }
+
+        return new BaseResponse(statisticMap);
+    }
+
+    // Backfill / sửa lại rollup order_stats_daily từ orders, idempotent nên chạy lại bao nhiêu lần cũng được
+    // (ví dụ sau rolling deploy, khi replica cũ vẫn insert order mà không tăng rollup)
+    @Transactional
+    @Override
+    public BaseResponse rebuildOrderStatsDaily(String range) throws Exception {
+        String startDate = null;
+        String endDate = null;
+        if (range != null && !range.isEmpty()) {
+            String[] rangeParts = range.split(",");
+            Date start = rangeParts.length == 2 ? Utils.parseDate(rangeParts[0].trim()+" 00:00:00", "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()) : null;
+            Date end = rangeParts.length == 2 ? Utils.parseDate(rangeParts[1].trim()+" 00:00:00", "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()) : null;
+            if (start == null || end == null || start.getTime() > end.getTime()) {
+                throw FieldErrorsResponse
+                        .builder()
+                        .errors(List.of(
+                                FieldErrorsResponse.FieldError.builder()
+                                        .field("range")
+                                        .message("Invalid range format")
+                                        .resource("Request param")
+                                        .build()
+                        ))
+                        .build();
+            }
+            startDate = rangeParts[0].trim();
+            endDate = rangeParts[1].trim();
+        }
+
+        int days = orderRepository.rebuildOrderStatsDaily(startDate, endDate);
+        Map<String, Object> rebuildMap = new LinkedHashMap<>();
+        rebuildMap.put("range", range);
+        rebuildMap.put("days", days);
+        return new BaseResponse(rebuildMap);
     }
 
     @Override
@@ -630,43 +732,53 @@ public class OrderServiceImpl implements OrderService {
             } catch (Exception exception1) {}
         }
 
-        List<Order> orders = orderRepository.getListOrderForAdmin(getListOrderForAdminRequest);
-        List<User> users = new ArrayList<>();
-        orders = this.filterListOrderForAdminByKeyword(orders, users, orderId, getListOrderForAdminRequest.getKeyword());
+        // Tìm user theo keyword trước, phần lọc còn lại đẩy xuống SQL
+        String keyword = getListOrderForAdminRequest.getKeyword();
+        List<Integer> keywordUserIds = orderEnrichmentService.findUserIdsByKeyword(keyword, "GetListOrderForAdminRequest");
 
-        int page = Integer.parseInt(getListOrderForAdminRequest.getPage());
-        int items = Integer.parseInt(getListOrderForAdminRequest.getItems());
-        int startIdx = (page - 1) * items;
-        int endIdx = Math.min(startIdx + items, orders.size());
-        List<Integer> orderIds = new ArrayList<>();
-        for (int i = startIdx; i < endIdx; i++) {
-            Order order = orders.get(i);
-            orderIds.add(order.getId());
+        Date cursorOrderTime = null;
+        int cursorId = 0;
+        String cursor = getListOrderForAdminRequest.getCursor();
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                cursorOrderTime = new Date(Long.parseLong(cursor.split("_")[0].trim()));
+                cursorId = Integer.parseInt(cursor.split("_")[1].trim());
+            } catch (Exception exception) {
+                listFieldErrors.add(
+                        FieldErrorsResponse.FieldError.builder()
+                                .field("cursor")
+                                .message("Invalid cursor format")
+                                .resource("GetListOrderForAdminRequest")
+                                .build()
+                );
+                throw FieldErrorsResponse
+                        .builder()
+                        .errors(listFieldErrors)
+                        .build();
+            }
         }
 
-        List<Payment> paymentGrpcs = (paymentServiceBlockingStub.getListPaymentByOrderIds(
-                GetListPaymentByOrderIdsRequest.newBuilder()
-                        .addAllOrderIds(orderIds)
-                        .build()
-        )).getPaymentsList();
+        List<Order> orders = orderRepository.getListOrderForAdmin(getListOrderForAdminRequest, orderId, keywordUserIds, cursorOrderTime, cursorId);
+        int totalRecords = orderRepository.countOrderForAdmin(getListOrderForAdminRequest, orderId, keywordUserIds);
+
+        IntIndex<Payment> paymentIndex = orderEnrichmentService.indexPaymentsByOrderId(orders);
+        IntIndex<User> userIndex = orderEnrichmentService.indexUsersById(orders);
 
         List<Map<String, Object>> orderMapList = new ArrayList<>();
-        for (int i = startIdx; i < endIdx; i++) {
-            Order order = orders.get(i);
+        for (Order order : orders) {
             Map<String, Object> orderMap = new LinkedHashMap<>();
             orderMap.put("id", order.getId());
-            Map<String, Object> hairStyleMap = objectMapper.readValue(order.getHairStyle(), LinkedHashMap.class);
-            Map<String, Object> hairColorMap = objectMapper.readValue(order.getHairColor(), LinkedHashMap.class);
-            User user = users.stream().filter(u -> u.getId() == order.getUserId()).findFirst().orElse(null);
+            User user = userIndex.get(order.getUserId());
             Map<String, Object> userMap = new LinkedHashMap<>();
             userMap.put("username", user.getUsername());
             userMap.put("email", user.getEmail());
             orderMap.put("user", userMap);
-            orderMap.put("hairStyle", hairStyleMap.get("name"));
-            if (hairColorMap != null) {
-                orderMap.put("hairColor", Map.of("colorCode", hairColorMap.get("colorCode"), "color", hairColorMap.get("color")));
+            orderMap.put("hairStyle", order.getHairStyleSnapshot().getName());
+            HairColorSnapshot hairColorSnapshot = order.getHairColorSnapshot();
+            if (hairColorSnapshot != null) {
+                orderMap.put("hairColor", Map.of("colorCode", hairColorSnapshot.getColorCode(), "color", hairColorSnapshot.getColor()));
             }
-            Payment paymentGrpc = findPaymentGrpcByOrderId(paymentGrpcs, order.getId());
+            Payment paymentGrpc = paymentIndex.get(order.getId());
             orderMap.put("orderTime", Utils.toDateStringWithFormatAndTimezone(order.getOrderTime(), "yyyy-MM-dd HH:mm:ss", TimeZone.ASIA_HCM.value()));
             orderMap.put("paymentType", paymentGrpc.getType());
             orderMap.put("amount", paymentGrpc.getAmount());
@@ -675,7 +787,11 @@ public class OrderServiceImpl implements OrderService {
             orderMapList.add(orderMap);
         }
 
-        int totalRecords = orders.size();
+        String nextCursor = null;
+        if (!orders.isEmpty() && orders.size() == Integer.parseInt(getListOrderForAdminRequest.getItems())) {
+            Order lastOrder = orders.get(orders.size() - 1);
+            nextCursor = lastOrder.getOrderTime().getTime() + "_" + lastOrder.getId();
+        }
 
         PaginationResponse paginationResponse = new PaginationResponse();
         paginationResponse.setData(orderMapList);
@@ -684,44 +800,13 @@ public class OrderServiceImpl implements OrderService {
                         .items(Integer.parseInt(getListOrderForAdminRequest.getItems()))
                         .page(Integer.parseInt(getListOrderForAdminRequest.getPage()))
                         .totalRecords(totalRecords)
+                        .nextCursor(nextCursor)
                         .build()
         );
 
         return paginationResponse;
     }
 
-    private List<Order> filterListOrderForAdminByKeyword(List<Order> orders, List<User> users, int orderId, String keyword) {
-        List<Integer> ids = new ArrayList<>();
-        for (Order order : orders) {
-            ids.add(order.getUserId());
-        }
-        GetListUserByIdsAndKeyWordRequest getListUserByIdsAndKeyWordRequest = GetListUserByIdsAndKeyWordRequest.newBuilder()
-                .addAllIds(ids)
-                .build();
-        List<User> userGrpcs = userServiceBlockingStub.getListUserByIdsAndKeyWord(getListUserByIdsAndKeyWordRequest).getUsersList();
-        for (User user : userGrpcs) {
-            users.add(user);
-        }
-        if (keyword != null && !keyword.isEmpty()) {
-            List<User> finalUsers = users;
-            orders = orders.stream().filter(order -> {
-                Map<String, Object> hairStyleMap = null;
-                try {
-                    User user = finalUsers.stream().filter(u -> u.getId() == order.getUserId()).findFirst().orElse(null);
-                    hairStyleMap = objectMapper.readValue(order.getHairStyle(), LinkedHashMap.class);
-                    return order.getId() == orderId ||
-                            hairStyleMap.get("name").toString().contains(keyword) ||
-                            user.getEmail().contains(keyword) ||
-                            user.getUsername().contains(keyword);
-                } catch (JsonProcessingException e) {
-                    throw new RuntimeException(e);
-                }
-            }).collect(Collectors.toList());
-        }
-
-        return orders;
-    }
-
     @Override
     public BaseResponse makeCutted(String orderId) throws Exception {
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
@@ -2,9 +2,15 @@ package barbershop.order_service.services.impl;
 
 import barbershop.order_service.services.RedisService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -29,6 +35,31 @@ public class RedisServiceImpl implements RedisService {
         return (String) redisTemplate.opsForValue().get(key); // Lấy giá trị từ Redis
     }
 
+    // Value binary (không qua StringRedisSerializer), MGET trả về null đúng vị trí key không tồn tại
+    @Override
+    public void setBytes(String key, byte[] value, long timeout, TimeUnit unit) {
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(
+                key.getBytes(StandardCharsets.UTF_8),
+                value,
+                Expiration.from(timeout, unit),
+                RedisStringCommands.SetOption.upsert()
+        ));
+    }
+
+    @Override
+    public List<byte[]> getBytesValues(List<String> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            rawKeys[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+        List<byte[]> result = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            result.add(values == null ? null : values.get(i));
+        }
+        return result;
+    }
+
     @Override
     public void deleteKey(String key) {
         redisTemplate.delete(key);
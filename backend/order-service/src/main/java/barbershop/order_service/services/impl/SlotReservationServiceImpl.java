@@ -0,0 +1,124 @@
+package barbershop.order_service.services.impl;
+
+import barber.Barber;
+import barbershop.order_service.Utils.Utils;
+import barbershop.order_service.enums.TimeZone;
+import barbershop.order_service.services.SlotReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Giữ slot theo key slot:{date time}:barberId trong Redis, dùng chung giữa các replica.
+ * Hash tag {date time} để các key của cùng một slot nằm chung node khi chạy Redis cluster.
+ * Value: orderUUID khi đang chờ thanh toán, "c:" + orderUUID khi order đã được lưu.
+ */
+@Slf4j
+@Service
+public class SlotReservationServiceImpl implements SlotReservationService {
+    // KEYS: slot key của các barber theo thứ tự ưu tiên; ARGV[1] = orderUUID, ARGV[2] = ttl (ms)
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "for i, key in ipairs(KEYS) do\n" +
+            "  if redis.call('set', key, ARGV[1], 'NX', 'PX', ARGV[2]) then\n" +
+            "    return i\n" +
+            "  end\n" +
+            "end\n" +
+            "return 0",
+            Long.class
+    );
+
+    // Hết hạn giữ chỗ nhưng vẫn thanh toán thành công thì vẫn xác nhận nếu slot còn trống
+    private static final RedisScript<Long> CONFIRM_SCRIPT = new DefaultRedisScript<>(
+            "local value = redis.call('get', KEYS[1])\n" +
+            "if value == false or value == ARGV[1] or value == 'c:' .. ARGV[1] then\n" +
+            "  redis.call('set', KEYS[1], 'c:' .. ARGV[1], 'PX', ARGV[2])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0",
+            Long.class
+    );
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('del', KEYS[1])\n" +
+            "end\n" +
+            "return 0",
+            Long.class
+    );
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${order.pending-order.ttl-ms:1800000}")
+    private long pendingOrderTtlMs;
+
+    @Override
+    public Barber reserve(List<Barber> candidates, String date, String time, String orderUUID) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>();
+        for (Barber barber : candidates) {
+            keys.add(slotKey(date, time, barber.getId()));
+        }
+        Long index = redisTemplate.execute(RESERVE_SCRIPT, keys, orderUUID, String.valueOf(pendingOrderTtlMs));
+        if (index == null || index == 0) {
+            return null;
+        }
+        return candidates.get(index.intValue() - 1);
+    }
+
+    @Override
+    public void release(String date, String time, int barberId, String orderUUID) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(slotKey(date, time, barberId)), orderUUID);
+        } catch (Exception exception) {
+            // Không release được thì slot tự hết hạn theo TTL
+            log.error("ERROR", exception);
+        }
+    }
+
+    @Override
+    public void confirm(String schedule, int barberId, String orderUUID) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doConfirm(schedule, barberId, orderUUID);
+                }
+            });
+            return;
+        }
+        doConfirm(schedule, barberId, orderUUID);
+    }
+
+    private void doConfirm(String schedule, int barberId, String orderUUID) {
+        try {
+            // Giữ key tới sau giờ hẹn, lúc đó occupancy index của mọi replica đã có order này
+            Date scheduleDate = Utils.parseDate(schedule, "yyyy-MM-dd HH:mm", TimeZone.ASIA_HCM.value());
+            long ttlMs = Math.max(60000, scheduleDate.getTime() + 3600000 - System.currentTimeMillis());
+            String date = schedule.split(" ")[0];
+            String time = schedule.split(" ")[1];
+            Long confirmed = redisTemplate.execute(CONFIRM_SCRIPT, List.of(slotKey(date, time, barberId)), orderUUID, String.valueOf(ttlMs));
+            if (confirmed == null || confirmed == 0) {
+                log.warn("Slot {} of barber {} was reserved by another order when confirming {}", schedule, barberId, orderUUID);
+            }
+        } catch (Exception exception) {
+            log.error("ERROR", exception);
+        }
+    }
+
+    private String slotKey(String date, String time, int barberId) {
+        return "slot:{" + date + " " + time + "}:" + barberId;
+    }
+}
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS `orders` (
+    `id` INT NOT NULL AUTO_INCREMENT,
+    `created_at` DATETIME(6) NOT NULL,
+    `updated_at` DATETIME(6) NOT NULL,
+    `hair_style` TEXT NOT NULL,
+    `hair_color` TEXT NULL,
+    `barber` TEXT NOT NULL,
+    `user_id` INT NOT NULL,
+    `order_time` DATETIME(6) NOT NULL,
+    `cutted` BIT(1) NOT NULL,
+    `schedule` DATETIME(6) NOT NULL,
+    PRIMARY KEY (`id`)
+) ENGINE=InnoDB;
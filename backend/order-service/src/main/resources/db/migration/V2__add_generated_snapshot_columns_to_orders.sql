@@ -0,0 +1,22 @@
+-- Tách các field hay dùng trong JSON snapshot ra stored generated column để query dùng được index
+ALTER TABLE `orders`
+    ADD COLUMN `barber_id` INT
+        GENERATED ALWAYS AS (CAST(json_unquote(json_extract(`barber`, '$.id')) AS UNSIGNED)) STORED,
+    ADD COLUMN `hair_style_id` INT
+        GENERATED ALWAYS AS (CAST(json_unquote(json_extract(`hair_style`, '$.id')) AS UNSIGNED)) STORED,
+    ADD COLUMN `hair_style_name` VARCHAR(255)
+        GENERATED ALWAYS AS (json_unquote(json_extract(`hair_style`, '$.name'))) STORED,
+    ADD COLUMN `hair_color_id` INT
+        GENERATED ALWAYS AS (CAST(json_unquote(json_extract(`hair_color`, '$.id')) AS UNSIGNED)) STORED;
+
+-- barber load trong ngày / scan lịch từ hôm nay (covering index)
+CREATE INDEX `idx_orders_schedule_barber_id` ON `orders` (`schedule`, `barber_id`);
+CREATE INDEX `idx_orders_barber_id_schedule` ON `orders` (`barber_id`, `schedule`);
+
+-- booking count theo hair style / hair color
+CREATE INDEX `idx_orders_hair_style_id_schedule` ON `orders` (`hair_style_id`, `schedule`);
+CREATE INDEX `idx_orders_hair_color_id_schedule` ON `orders` (`hair_color_id`, `schedule`);
+
+-- lịch sử order của user: sort theo order_time, filter theo tên hair style
+CREATE INDEX `idx_orders_user_id_order_time` ON `orders` (`user_id`, `order_time`);
+CREATE INDEX `idx_orders_user_id_hair_style_name` ON `orders` (`user_id`, `hair_style_name`);
@@ -0,0 +1,2 @@
+-- Keyset pagination cho trang admin: range theo order_time, tie-break theo id
+CREATE INDEX `idx_orders_order_time_id` ON `orders` (`order_time`, `id`);
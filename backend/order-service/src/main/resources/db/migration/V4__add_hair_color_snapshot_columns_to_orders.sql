@@ -0,0 +1,7 @@
+-- Các field hair color mà trang danh sách đọc, để không phải parse JSON từng row.
+-- Generated column STORED nên các row cũ được tính luôn khi ALTER
+ALTER TABLE `orders`
+    ADD COLUMN `hair_color_color` VARCHAR(255)
+        GENERATED ALWAYS AS (json_unquote(json_extract(`hair_color`, '$.color'))) STORED,
+    ADD COLUMN `hair_color_code` VARCHAR(255)
+        GENERATED ALWAYS AS (json_unquote(json_extract(`hair_color`, '$.colorCode'))) STORED;
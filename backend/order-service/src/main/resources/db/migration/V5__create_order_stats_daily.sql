@@ -0,0 +1,13 @@
+-- Rollup số order theo ngày (order_time), tăng trong cùng transaction với insert order
+CREATE TABLE IF NOT EXISTS `order_stats_daily` (
+    `stat_date` DATE NOT NULL,
+    `quantity` INT NOT NULL,
+    PRIMARY KEY (`stat_date`)
+) ENGINE=InnoDB;
+
+-- Backfill từ dữ liệu cũ
+INSERT INTO `order_stats_daily` (`stat_date`, `quantity`)
+SELECT date(`order_time`), count(*)
+FROM `orders`
+GROUP BY date(`order_time`)
+ON DUPLICATE KEY UPDATE `quantity` = VALUES(`quantity`);
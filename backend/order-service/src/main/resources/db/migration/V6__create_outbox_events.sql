@@ -0,0 +1,12 @@
+-- Transactional outbox: event ghi cùng transaction với order, relay đẩy lên Kafka rồi xóa
+CREATE TABLE IF NOT EXISTS `outbox_events` (
+    `id` INT NOT NULL AUTO_INCREMENT,
+    `created_at` DATETIME(6) NOT NULL,
+    `updated_at` DATETIME(6) NOT NULL,
+    `topic` VARCHAR(255) NOT NULL,
+    `payload` MEDIUMTEXT NOT NULL,
+    `attempts` INT NOT NULL DEFAULT 0,
+    `available_at` DATETIME(6) NOT NULL,
+    PRIMARY KEY (`id`),
+    INDEX `idx_outbox_events_available_at_id` (`available_at`, `id`)
+) ENGINE=InnoDB;
@@ -0,0 +1,14 @@
+-- Số lượt đặt theo hair style, cộng dồn định kỳ từ bộ đếm trong bộ nhớ của từng instance
+CREATE TABLE IF NOT EXISTS `hair_style_booking_counts` (
+    `hair_style_id` INT NOT NULL,
+    `booking` BIGINT NOT NULL,
+    PRIMARY KEY (`hair_style_id`)
+) ENGINE=InnoDB;
+
+-- Backfill từ dữ liệu cũ
+INSERT INTO `hair_style_booking_counts` (`hair_style_id`, `booking`)
+SELECT `hair_style_id`, count(*)
+FROM `orders`
+WHERE `hair_style_id` IS NOT NULL
+GROUP BY `hair_style_id`
+ON DUPLICATE KEY UPDATE `booking` = VALUES(`booking`);
@@ -0,0 +1,225 @@
+package barbershop.order_service.Utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLoaderTest {
+    private static final long LONG_WAIT_MS = 60000;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    // Các batch key mà batchFunction đã nhận
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void flushesWhenBatchIsFull() throws Exception {
+        BatchLoader<Integer> loader = loader(3, LONG_WAIT_MS, LONG_WAIT_MS, Runnable::run);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+        assertFalse(first.isDone());
+        assertTrue(batches.isEmpty());
+
+        CompletableFuture<Integer> third = loader.load(3);
+
+        // Đủ maxBatchSize thì gửi ngay, không chờ cửa sổ thời gian
+        assertEquals(List.of(List.of(1, 2, 3)), batches);
+        assertEquals(10, first.getNow(null));
+        assertEquals(20, second.getNow(null));
+        assertEquals(30, third.getNow(null));
+
+        // Key sau đó mở cửa sổ mới
+        CompletableFuture<Integer> fourth = loader.load(4);
+        assertFalse(fourth.isDone());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void flushesWhenWindowExpires() throws Exception {
+        BatchLoader<Integer> loader = loader(100, 50, LONG_WAIT_MS, Runnable::run);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+        assertFalse(first.isDone());
+
+        assertEquals(10, first.get(5, TimeUnit.SECONDS));
+        assertEquals(20, second.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1, 2)), batches);
+    }
+
+    @Test
+    void timerOfFullBatchDoesNotFlushNextWindow() throws Exception {
+        BatchLoader<Integer> loader = loader(2, 300, LONG_WAIT_MS, Runnable::run);
+
+        loader.load(1);
+        loader.load(2);
+        assertEquals(1, batches.size());
+
+        // Timer của batch đầu hết hạn trong cửa sổ của key 3: key 3 vẫn được gửi bằng timer của chính nó
+        Thread.sleep(200);
+        CompletableFuture<Integer> third = loader.load(3);
+        Thread.sleep(200);
+        assertEquals(1, batches.size());
+        assertFalse(third.isDone());
+
+        assertEquals(30, third.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1, 2), List.of(3)), batches);
+    }
+
+    @Test
+    void deduplicatesKeysInBatch() throws Exception {
+        BatchLoader<Integer> loader = loader(3, LONG_WAIT_MS, LONG_WAIT_MS, Runnable::run);
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> duplicate = loader.load(1);
+        loader.load(2);
+
+        assertEquals(List.of(List.of(1, 2)), batches);
+        assertEquals(10, first.getNow(null));
+        assertEquals(10, duplicate.getNow(null));
+    }
+
+    @Test
+    void missingKeysCompleteWithNull() throws Exception {
+        // Key lẻ không tồn tại ở service đích
+        BatchLoader<Integer> loader = loader(2, LONG_WAIT_MS, LONG_WAIT_MS, Runnable::run, keys -> {
+            List<Integer> values = new ArrayList<>();
+            for (int key : keys) {
+                if (key % 2 == 0) {
+                    values.add(key * 10);
+                }
+            }
+            return values;
+        });
+
+        CompletableFuture<Integer> odd = loader.load(1);
+        CompletableFuture<Integer> even = loader.load(2);
+
+        assertNull(odd.getNow(-1));
+        assertEquals(20, even.getNow(null));
+    }
+
+    @Test
+    void loadAllSkipsMissingKeysAndKeepsOrder() {
+        BatchLoader<Integer> loader = loader(100, 20, 5000, Runnable::run, keys -> {
+            batches.add(keys);
+            List<Integer> values = new ArrayList<>();
+            for (int key : keys) {
+                if (key != 2) {
+                    values.add(key * 10);
+                }
+            }
+            return values;
+        });
+
+        assertEquals(List.of(30, 10), loader.loadAll(List.of(3, 2, 1, 3)));
+        assertEquals(List.of(List.of(3, 2, 1)), batches);
+    }
+
+    @Test
+    void batchFailureFailsEveryKey() {
+        IllegalStateException failure = new IllegalStateException("RPC failed");
+        BatchLoader<Integer> loader = loader(2, 20, 5000, Runnable::run, keys -> {
+            throw failure;
+        });
+
+        CompletableFuture<Integer> first = loader.load(1);
+        CompletableFuture<Integer> second = loader.load(2);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertSame(failure, exception.getCause());
+        assertTrue(second.isCompletedExceptionally());
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> loader.loadAll(List.of(3))));
+    }
+
+    @Test
+    void rejectedExecutionFailsBatch() {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("Executor is full");
+        };
+        BatchLoader<Integer> loader = loader(1, LONG_WAIT_MS, LONG_WAIT_MS, rejecting);
+
+        CompletableFuture<Integer> future = loader.load(1);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void loadAllTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        BatchLoader<Integer> loader = loader(1, LONG_WAIT_MS, 50, executor, keys -> {
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        });
+
+        try {
+            CompletionException exception = assertThrows(CompletionException.class, () -> loader.loadAll(List.of(1)));
+            assertInstanceOf(TimeoutException.class, exception.getCause());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private BatchLoader<Integer> loader(int maxBatchSize, long maxWaitMs, long loadTimeoutMs, Executor executor) {
+        return loader(maxBatchSize, maxWaitMs, loadTimeoutMs, executor, keys -> {
+            batches.add(keys);
+            List<Integer> values = new ArrayList<>();
+            for (int key : keys) {
+                values.add(key * 10);
+            }
+            return values;
+        });
+    }
+
+    // Value = key * 10 nên key của value là value / 10
+    private BatchLoader<Integer> loader(int maxBatchSize, long maxWaitMs, long loadTimeoutMs, Executor executor, Function<List<Integer>, List<Integer>> batchFunction) {
+        return new BatchLoader<>(
+                "test",
+                batchFunction,
+                value -> value / 10,
+                maxBatchSize,
+                maxWaitMs,
+                loadTimeoutMs,
+                scheduler,
+                executor,
+                new SimpleMeterRegistry());
+    }
+}
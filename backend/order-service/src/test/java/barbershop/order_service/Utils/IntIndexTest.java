@@ -0,0 +1,93 @@
+package barbershop.order_service.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntIndexTest {
+    private static class Item {
+        private final int id;
+        private final String name;
+
+        private Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Test
+    void returnsNullForMissingKey() {
+        IntIndex<Item> index = IntIndex.of(List.of(new Item(1, "a"), new Item(2, "b")), item -> item.id);
+
+        assertEquals("a", index.get(1).name);
+        assertEquals("b", index.get(2).name);
+        assertNull(index.get(3));
+        assertNull(index.get(0));
+        assertNull(index.get(-1));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void emptyListHasNoKeys() {
+        IntIndex<Item> index = IntIndex.of(List.of(), item -> item.id);
+
+        assertNull(index.get(1));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void keepsFirstValueOfDuplicateKey() {
+        IntIndex<Item> index = IntIndex.of(List.of(new Item(1, "first"), new Item(1, "second"), new Item(2, "b")), item -> item.id);
+
+        assertEquals("first", index.get(1).name);
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void collidingKeysKeepSeparateValues() {
+        // Hai phần tử -> bảng 4 ô: tìm các key có cùng ô đầu để ép linear probing
+        int first = 1;
+        int second = first + 1;
+        while (homeSlot(second, 4) != homeSlot(first, 4)) {
+            second++;
+        }
+        int missing = second + 1;
+        while (homeSlot(missing, 4) != homeSlot(first, 4)) {
+            missing++;
+        }
+
+        IntIndex<Item> index = IntIndex.of(List.of(new Item(first, "first"), new Item(second, "second")), item -> item.id);
+
+        assertEquals("first", index.get(first).name);
+        assertEquals("second", index.get(second).name);
+        // Key cùng ô nhưng không có phải đi hết chuỗi probe rồi trả về null
+        assertNull(index.get(missing));
+    }
+
+    @Test
+    void sizesTableForAllKeys() {
+        // Không có resize: bảng phải đủ chỗ cho cả danh sách ngay từ đầu
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            items.add(new Item(i * 7, "item-" + i));
+        }
+
+        IntIndex<Item> index = IntIndex.of(items, item -> item.id);
+
+        assertEquals(1000, index.size());
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals("item-" + i, index.get(i * 7).name);
+            assertNull(index.get(i * 7 + 1));
+        }
+    }
+
+    // Cùng hàm băm với IntIndex.mix, chỉ dùng để chọn các key va chạm
+    private static int homeSlot(int key, int capacity) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,108 @@
+package barbershop.order_service.Utils;
+
+import barber.Barber;
+import hairColor.HairColor;
+import hairStyle.Discount;
+import hairStyle.HairStyle;
+import org.junit.jupiter.api.Test;
+import pendingOrder.PendingOrder;
+import user.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PendingOrderCodecTest {
+    @Test
+    void binaryRoundTrip() throws Exception {
+        PendingOrder pendingOrder = pendingOrder();
+
+        byte[] value = PendingOrderCodec.encode(pendingOrder);
+
+        assertEquals(PendingOrderCodec.VERSION, value[0]);
+        assertEquals(pendingOrder, PendingOrderCodec.decode(value));
+    }
+
+    @Test
+    void decodesLegacyJson() throws Exception {
+        String hairColor = "{\"id\":2,\"color\":\"Nâu\",\"price\":50000,\"active\":true,\"colorCode\":\"#8B4513\"}";
+
+        PendingOrder pendingOrder = PendingOrderCodec.decode(legacyJson(hairColor));
+
+        assertEquals(3, pendingOrder.getUser().getId());
+        assertEquals("user.png", pendingOrder.getUser().getAvatar());
+        assertEquals(5, pendingOrder.getBarber().getId());
+        assertEquals("barber.png", pendingOrder.getBarber().getImg());
+        assertEquals("%", pendingOrder.getHairStyle().getDiscount().getUnit());
+        assertEquals(10, pendingOrder.getHairStyle().getDiscount().getValue());
+        assertEquals("#8B4513", pendingOrder.getHairColor().getColorCode());
+        assertEquals("2026-10-20 09:00", pendingOrder.getSchedule());
+        assertEquals(140000, pendingOrder.getAmount());
+        assertEquals("VNPAY", pendingOrder.getPaymentType());
+
+        // Snapshot ghi vào orders giữ nguyên key "avatar" như JSON cũ
+        Map<String, Object> barberMap = PendingOrderCodec.toBarberMap(pendingOrder.getBarber());
+        assertEquals("barber.png", barberMap.get("avatar"));
+    }
+
+    @Test
+    void decodesLegacyJsonWithoutHairColor() throws Exception {
+        PendingOrder pendingOrder = PendingOrderCodec.decode(legacyJson("null"));
+
+        assertFalse(pendingOrder.hasHairColor());
+        assertNull(PendingOrderCodec.toOrderMap(pendingOrder).get("hairColor"));
+        assertEquals("barber.png", pendingOrder.getBarber().getImg());
+    }
+
+    @Test
+    void legacyJsonAndBinaryDecodeToSameOrder() throws Exception {
+        PendingOrder fromJson = PendingOrderCodec.decode(legacyJson("null"));
+
+        byte[] value = PendingOrderCodec.encode(fromJson);
+
+        assertArrayEquals(value, PendingOrderCodec.encode(PendingOrderCodec.decode(value)));
+        assertEquals(PendingOrderCodec.toOrderMap(fromJson), PendingOrderCodec.toOrderMap(PendingOrderCodec.decode(value)));
+    }
+
+    @Test
+    void rejectsMissingOrUnknownValue() {
+        assertThrows(IllegalArgumentException.class, () -> PendingOrderCodec.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> PendingOrderCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> PendingOrderCodec.decode(new byte[]{2, 0}));
+    }
+
+    private static PendingOrder pendingOrder() {
+        return PendingOrder.newBuilder()
+                .setUser(User.newBuilder().setId(3).setUsername("an").setEmail("an@example.com").setAvatar("user.png").build())
+                .setSchedule("2026-10-20 09:00")
+                .setBarber(Barber.newBuilder().setId(5).setName("Bình").setImg("barber.png").setActive(true).build())
+                .setHairStyle(HairStyle.newBuilder().setId(7).setName("Undercut").setPrice(100000).setActive(true)
+                        .setDiscount(Discount.newBuilder().setUnit("%").setValue(10).build()).build())
+                .setHairColor(HairColor.newBuilder().setId(2).setColor("Nâu").setPrice(50000).setActive(true).setColorCode("#8B4513").build())
+                .setOrderTime("2026-10-18 10:00:00")
+                .setAmount(140000)
+                .setPaymentType("VNPAY")
+                .build();
+    }
+
+    // Value JSON do payment() ghi trước khi đổi sang binary
+    private static byte[] legacyJson(String hairColor) {
+        return ("{" +
+                "\"user\":{\"id\":3,\"username\":\"an\",\"email\":\"an@example.com\",\"avatar\":\"user.png\",\"address\":\"Hà Nội\",\"phone\":\"0900000000\",\"role\":\"USER\",\"gender\":\"male\"}," +
+                "\"schedule\":\"2026-10-20 09:00\"," +
+                "\"cutted\":false," +
+                "\"barber\":{\"id\":5,\"name\":\"Bình\",\"avatar\":\"barber.png\",\"active\":true}," +
+                "\"hairStyle\":{\"id\":7,\"name\":\"Undercut\",\"price\":100000,\"active\":true,\"discount\":{\"unit\":\"%\",\"value\":10}}," +
+                "\"hairColor\":" + hairColor + "," +
+                "\"orderTime\":\"2026-10-18 10:00:00\"," +
+                "\"amount\":140000," +
+                "\"status\":\"Success\"," +
+                "\"paymentType\":\"VNPAY\"" +
+                "}").getBytes(StandardCharsets.UTF_8);
+    }
+}
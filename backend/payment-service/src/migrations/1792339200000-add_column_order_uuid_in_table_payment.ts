@@ -0,0 +1,16 @@
+import { MigrationInterface, QueryRunner } from "typeorm";
+
+export class AddColumnOrderUuidInTablePayment1792339200000 implements MigrationInterface {
+    name = 'AddColumnOrderUuidInTablePayment1792339200000'
+
+    public async up(queryRunner: QueryRunner): Promise<void> {
+        await queryRunner.query(`ALTER TABLE "payment" ADD "order_uuid" character varying(64)`);
+        await queryRunner.query(`CREATE UNIQUE INDEX "UQ_payment_order_uuid" ON "payment" ("order_uuid")`);
+    }
+
+    public async down(queryRunner: QueryRunner): Promise<void> {
+        await queryRunner.query(`DROP INDEX "public"."UQ_payment_order_uuid"`);
+        await queryRunner.query(`ALTER TABLE "payment" DROP COLUMN "order_uuid"`);
+    }
+
+}
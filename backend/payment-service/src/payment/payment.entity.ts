@@ -1,12 +1,17 @@
 import { BaseEntity } from '@common/entity/base.entity';
 import { PaymentStatus, PaymentType } from '@payment/payment.enum';
-import { Column, Entity } from 'typeorm';
+import { Column, Entity, Index } from 'typeorm';
 
 @Entity('payment')
 export class Payment extends BaseEntity<Payment> {
   @Column({ name: 'order_id', type: 'int' })
   orderId: number;
 
+  // Khoá idempotent: order-service có thể gửi lại payment của cùng một order khi retry
+  @Index('UQ_payment_order_uuid', { unique: true })
+  @Column({ name: 'order_uuid', type: 'varchar', length: 64, nullable: true })
+  orderUUID: string;
+
   @Column({ name: 'status', type: 'enum', enum: PaymentStatus })
   status: string;
 
@@ -11,6 +11,8 @@ import {
   PaymentServiceControllerMethods,
   SaveNewPaymentRequest,
   SaveNewPaymentResponse,
+  SaveNewPaymentsRequest,
+  SaveNewPaymentsResponse,
   TransactionRequest,
   TransactionResponse,
 } from '@protos/payment';
@@ -57,6 +59,7 @@ export class PaymentGrpcController implements PaymentServiceController {
   async saveNewPayment(request: SaveNewPaymentRequest) {
     const externalRequestDto = JSON.parse(request.externalRequest);
     const paymentRequestDto = {
+      orderUUID: request.orderUUID,
       orderId: request.orderId,
       amount: request.amount,
       hairStyleId: request.hairStyleId,
@@ -79,6 +82,40 @@ export class PaymentGrpcController implements PaymentServiceController {
     } as SaveNewPaymentResponse;
   }
 
+  async saveNewPayments(request: SaveNewPaymentsRequest) {
+    const paymentRequests = request.payments || [];
+    const payments = await this.paymentService.saveNewPayments(
+      paymentRequests.map((paymentRequest) => ({
+        externalRequestDto: JSON.parse(paymentRequest.externalRequest),
+        paymentRequestDto: {
+          orderUUID: paymentRequest.orderUUID,
+          orderId: paymentRequest.orderId,
+          amount: paymentRequest.amount,
+          hairStyleId: paymentRequest.hairStyleId,
+          userId: paymentRequest.userId,
+        },
+        payOnlineType:
+          paymentRequest.payOnlineType === 'VNPAY'
+            ? PayOnlineType.VNPAY
+            : PayOnlineType.MOMO,
+        paymentStatus:
+          paymentRequest.paymentStatus === 'SUCCESS'
+            ? PaymentStatus.SUCCESS
+            : PaymentStatus.FAIL,
+      })),
+    );
+
+    await Promise.all(
+      paymentRequests.map((paymentRequest) =>
+        this.cacheManager.del(paymentRequest.orderUUID.toString()),
+      ),
+    );
+
+    return {
+      payments,
+    } as SaveNewPaymentsResponse;
+  }
+
   async getListPaymentByOrderIds(request: GetListPaymentByOrderIdsRequest) {
     return this.paymentService.getListPaymentByOrderIds(request.orderIds);
   }
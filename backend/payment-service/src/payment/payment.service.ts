@@ -16,6 +16,7 @@ import {
   StatisticItemsRequestDto,
   StatisticRevenuesRequestDto,
 } from '@payment/payment.dto';
+import { Payment } from '@payment/payment.entity';
 import { PaymentStatus } from '@payment/payment.enum';
 import { PaymentRepository } from '@payment/payment.repository';
 import * as dayjs from 'dayjs';
@@ -41,6 +42,78 @@ export class PaymentService {
     paymentRequestDto: PaymentRequestDto,
     payOnlineType: PayOnlineType,
     paymentStatus: PaymentStatus,
+  ) {
+    const payment = this.buildNewPayment(
+      externalRequestDto,
+      paymentRequestDto,
+      payOnlineType,
+      paymentStatus,
+    );
+
+    await this.upsertPayments([payment]);
+
+    return {
+      bankCode: payment.bankCode,
+      bankTranNo: payment.bankTranNo,
+    };
+  }
+
+  // Lưu nhiều payment trong một câu upsert cho consumer batch của order-service
+  async saveNewPayments(
+    items: {
+      externalRequestDto: any;
+      paymentRequestDto: PaymentRequestDto;
+      payOnlineType: PayOnlineType;
+      paymentStatus: PaymentStatus;
+    }[],
+  ) {
+    const payments = items.map((item) =>
+      this.buildNewPayment(
+        item.externalRequestDto,
+        item.paymentRequestDto,
+        item.payOnlineType,
+        item.paymentStatus,
+      ),
+    );
+
+    await this.upsertPayments(payments);
+
+    return payments.map((payment) => ({
+      bankCode: payment.bankCode,
+      bankTranNo: payment.bankTranNo,
+    }));
+  }
+
+  // Upsert theo order_uuid: order-service gọi lại khi transaction bên đó rollback / RPC timeout sau khi đã lưu,
+  // lần gọi sau trỏ payment sang order id mới thay vì tạo payment trùng
+  private async upsertPayments(payments: Payment[]) {
+    const paymentsByOrderUUID = new Map<string, Payment>();
+    const paymentsWithoutOrderUUID: Payment[] = [];
+    for (const payment of payments) {
+      if (payment.orderUUID) {
+        // Postgres không cho một câu ON CONFLICT cập nhật cùng một row hai lần
+        paymentsByOrderUUID.set(payment.orderUUID, payment);
+      } else {
+        paymentsWithoutOrderUUID.push(payment);
+      }
+    }
+
+    if (paymentsByOrderUUID.size > 0) {
+      await this.paymentRepository.upsert([...paymentsByOrderUUID.values()], {
+        conflictPaths: ['orderUUID'],
+        skipUpdateIfNoValuesChanged: true,
+      });
+    }
+    if (paymentsWithoutOrderUUID.length > 0) {
+      await this.paymentRepository.save(paymentsWithoutOrderUUID);
+    }
+  }
+
+  private buildNewPayment(
+    externalRequestDto: any,
+    paymentRequestDto: PaymentRequestDto,
+    payOnlineType: PayOnlineType,
+    paymentStatus: PaymentStatus,
   ) {
     let payTime = null;
     let bankCode = 'SGB';
@@ -64,9 +137,10 @@ export class PaymentService {
         break;
     }
 
-    await this.paymentRepository.save({
+    return this.paymentRepository.create({
       amount: paymentRequestDto.amount,
       orderId: paymentRequestDto.orderId,
+      orderUUID: paymentRequestDto.orderUUID,
       hairStyleId: paymentRequestDto.hairStyleId,
       userId: paymentRequestDto.userId,
       status: paymentStatus,
@@ -75,11 +149,6 @@ export class PaymentService {
       type: payOnlineType,
       payTime,
     });
-
-    return {
-      bankCode,
-      bankTranNo,
-    };
   }
 
   async getListPaymentByOrderIds(orderIds: number[]) {
@@ -36,6 +36,14 @@ export interface SaveNewPaymentResponse {
   bankTranNo: string;
 }
 
+export interface SaveNewPaymentsRequest {
+  payments: SaveNewPaymentRequest[];
+}
+
+export interface SaveNewPaymentsResponse {
+  payments: SaveNewPaymentResponse[];
+}
+
 export interface Payment {
   id: number;
   orderId: number;
@@ -62,6 +70,8 @@ export interface PaymentServiceClient {
 
   saveNewPayment(request: SaveNewPaymentRequest): Observable<SaveNewPaymentResponse>;
 
+  saveNewPayments(request: SaveNewPaymentsRequest): Observable<SaveNewPaymentsResponse>;
+
   getListPaymentByOrderIds(request: GetListPaymentByOrderIdsRequest): Observable<GetListPaymentByOrderIdsResponse>;
 }
 
@@ -74,6 +84,10 @@ export interface PaymentServiceController {
     request: SaveNewPaymentRequest,
   ): Promise<SaveNewPaymentResponse> | Observable<SaveNewPaymentResponse> | SaveNewPaymentResponse;
 
+  saveNewPayments(
+    request: SaveNewPaymentsRequest,
+  ): Promise<SaveNewPaymentsResponse> | Observable<SaveNewPaymentsResponse> | SaveNewPaymentsResponse;
+
   getListPaymentByOrderIds(
     request: GetListPaymentByOrderIdsRequest,
   ):
@@ -84,7 +98,7 @@ export interface PaymentServiceController {
 
 export function PaymentServiceControllerMethods() {
   return function (constructor: Function) {
-    const grpcMethods: string[] = ["transaction", "saveNewPayment", "getListPaymentByOrderIds"];
+    const grpcMethods: string[] = ["transaction", "saveNewPayment", "saveNewPayments", "getListPaymentByOrderIds"];
     for (const method of grpcMethods) {
       const descriptor: any = Reflect.getOwnPropertyDescriptor(constructor.prototype, method);
       GrpcMethod("PaymentService", method)(constructor.prototype[method], method, descriptor);
@@ -1,12 +1,25 @@
 package barbershop.user_service;
 
+import barbershop.common.outbox.OutboxEvent;
+import barbershop.common.outbox.OutboxEventRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.Map;
+
+@EnableScheduling
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class })
+// Entity / repository outbox nằm ở module common-outbox, ngoài package của service
+@EntityScan(basePackageClasses = {UserServiceApplication.class, OutboxEvent.class})
+@EnableJpaRepositories(basePackageClasses = {UserServiceApplication.class, OutboxEventRepository.class})
 public class UserServiceApplication {
 
 	public static void main(String[] args) {
@@ -18,4 +31,15 @@ public class UserServiceApplication {
 		// topic name, partition numbers, replication number = broker server number
 		return new NewTopic("send-email-register", 2, (short) 1);
 	}
+
+	@Value("${jwt.expire}")
+	private long tokenExpire;
+
+	@Bean
+	NewTopic userRevoked() {
+		// Logout / khoá tài khoản / đổi profile: các service xoá user khỏi auth cache.
+		// Giữ message ít nhất bằng thời hạn token để instance mới khởi động đọc lại được danh sách thu hồi
+		return new NewTopic("user-revoked", 1, (short) 1)
+				.configs(Map.of(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(tokenExpire)));
+	}
 }
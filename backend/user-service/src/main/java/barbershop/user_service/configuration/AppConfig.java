@@ -1,12 +1,20 @@
 package barbershop.user_service.configuration;
 
+import barbershop.common.outbox.OutboxEventRepository;
+import barbershop.common.outbox.OutboxService;
+import barbershop.common.outbox.OutboxServiceImpl;
+import barbershop.common.security.TokenVerifier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -44,6 +52,13 @@ public class AppConfig {
         return new ObjectMapper();
     }
 
+    @Bean
+    public TokenVerifier tokenVerifier(
+            @Value("${jwt.token.secretKey}") String secret,
+            @Value("${jwt.expire}") long expire) {
+        return new TokenVerifier(secret, expire);
+    }
+
 //    @Bean
 //    public CommonsMultipartResolver multipartResolver() {
 //        CommonsMultipartResolver resolver = new CommonsMultipartResolver();
@@ -61,4 +76,14 @@ public class AppConfig {
 //        registrationBean.setOrder(1); // Ưu tiên thực thi (số nhỏ hơn được thực thi trước)
 //        return registrationBean;
 //    }
+
+    // Outbox dùng chung (common-outbox), cấu hình "user.outbox.*"
+    @Bean
+    public OutboxService outboxService(
+            OutboxEventRepository outboxEventRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            Environment environment) {
+        return new OutboxServiceImpl(outboxEventRepository, kafkaTemplate, transactionTemplate, environment, "user");
+    }
 }
@@ -9,6 +9,7 @@ public interface UserRepositoryCustom {
     void updateUserProfile(User user);
     int statisticQuantity(int month, int year);
     List<User> getListUserByIdsAndKeyword(List<Integer> ids, String keyword);
+    List<Integer> getListUserIdsByKeyword(String keyword, int afterId, int limit);
     List<User> getListUserForAdmin(GetListUserForAdminRequest getListUserForAdminRequest);
     int countUserForAdmin(GetListUserForAdminRequest getListUserForAdminRequest);
 }
@@ -97,6 +97,26 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
         });
     }
 
+    @Override
+    public List<Integer> getListUserIdsByKeyword(String keyword, int afterId, int limit) {
+        String sql = "select id from users\n" +
+                "where (username ilike :keyword or email ilike :keyword) and id > :afterId\n" +
+                "order by id asc\n" +
+                "limit :limit";
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("keyword", "%"+keyword+"%");
+        parameters.put("afterId", afterId);
+        parameters.put("limit", limit);
+
+        return namedParameterJdbcTemplate.query(sql, parameters, new RowMapper<Integer>() {
+
+            @Override
+            public Integer mapRow(ResultSet rs, int rowNum) throws SQLException {
+                return rs.getInt("id");
+            }
+        });
+    }
+
     @Override
     public List<User> getListUserForAdmin(GetListUserForAdminRequest getListUserForAdminRequest) {
         String sql = "select * from users where users.role = 'USER'\n";
@@ -123,4 +123,22 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
         responseObserver.onNext(responsebuilder);
         responseObserver.onCompleted();
     }
+
+    @Override
+    public void getListUserIdsByKeyword(GetListUserIdsByKeywordRequest request, StreamObserver<GetListUserIdsByKeywordResponse> responseObserver) {
+        if (request.getKeyword().isEmpty()) {
+            responseObserver.onNext(GetListUserIdsByKeywordResponse.newBuilder().build());
+            responseObserver.onCompleted();
+            return;
+        }
+
+        List<Integer> ids = userRepository.getListUserIdsByKeyword(request.getKeyword(), request.getAfterId(), request.getLimit() > 0 ? request.getLimit() : 1000);
+
+        responseObserver.onNext(
+                GetListUserIdsByKeywordResponse.newBuilder()
+                        .addAllIds(ids)
+                        .build()
+        );
+        responseObserver.onCompleted();
+    }
 }
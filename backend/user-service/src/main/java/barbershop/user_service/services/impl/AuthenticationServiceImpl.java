@@ -13,6 +13,7 @@ import barbershop.user_service.securities.Bcrypt;
 import barbershop.user_service.securities.Hash;
 import barbershop.user_service.services.AuthenticationService;
 import barbershop.user_service.services.JwtService;
+import barbershop.common.outbox.OutboxService;
 import barbershop.user_service.services.RedisService;
 import barbershop.user_service.services.S3StorageService;
 import barbershop.user_service.utils.Utils;
@@ -21,7 +22,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -67,7 +67,7 @@ public class AuthenticationServiceImpl extends AuthenticationService {
     private S3StorageService s3StorageService;
 
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OutboxService outboxService;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -116,6 +116,9 @@ public class AuthenticationServiceImpl extends AuthenticationService {
                 throw new HttpException("Invalid token", HttpStatus.UNAUTHORIZED.value());
             }
             this.redisService.deleteKey("u_"+payLoad.getId());
+            // revokedAt: các service xác thực token tại chỗ từ chối mọi token có iat <= thời điểm này
+            this.outboxService.publish("user-revoked",
+                    this.objectMapper.writeValueAsString(Map.of("id", payLoad.getId(), "revokedAt", System.currentTimeMillis())));
             return new ResponseSuccess(HttpStatus.OK, "Logout Success");
         } catch (Exception exception) {
             log.error("ERROR", exception);
@@ -162,8 +165,8 @@ public class AuthenticationServiceImpl extends AuthenticationService {
                 .active(user.isActive())
                 .build();
 
-        // Emit event send mail to notification-service by Kafka
-        this.kafkaTemplate.send("send-email-register",
+        // Emit event send mail to notification-service by Kafka (qua outbox, cùng transaction với user)
+        this.outboxService.publish("send-email-register",
                 this.objectMapper.writeValueAsString(userDetailResponse));
 
         return LoginResponse.builder()
@@ -193,7 +196,7 @@ public class AuthenticationServiceImpl extends AuthenticationService {
                     .user(userDetailResponse)
                     .build();
 
-            this.kafkaTemplate.send("send-email-register",
+            this.outboxService.publish("send-email-register",
                     this.objectMapper.writeValueAsString(userDetailResponse));
 
             return new ResponseSuccess(HttpStatus.OK, "Success");
@@ -291,7 +294,7 @@ public class AuthenticationServiceImpl extends AuthenticationService {
         String url = serverProtocol+"://"+serverDomain+"/authen/reset-password?token="+Utils.encodeURIComponent(token);
 
         this.redisService.setValue("fp_"+user.getEmail(), token, Long.parseLong(forgotPasswordExpire), TimeUnit.MILLISECONDS);
-        this.kafkaTemplate.send("send-email-reset-password",
+        this.outboxService.publish("send-email-reset-password",
                 this.objectMapper.writeValueAsString(Map.of("email", user.getEmail(), "url", url)));
 
         // return new AppBaseResponse(url);
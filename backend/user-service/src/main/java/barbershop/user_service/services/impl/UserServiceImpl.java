@@ -11,9 +11,11 @@ import barbershop.user_service.enums.TimeZone;
 import barbershop.user_service.exception.ResourceNotFoundException;
 import barbershop.user_service.repositories.UserRepository;
 import barbershop.user_service.securities.Bcrypt;
+import barbershop.common.outbox.OutboxService;
 import barbershop.user_service.services.S3StorageService;
 import barbershop.user_service.services.UserService;
 import barbershop.user_service.utils.Utils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -42,6 +44,12 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private S3StorageService s3StorageService;
 
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -101,6 +109,9 @@ public class UserServiceImpl implements UserService {
                 .avatar(userUpdated.getAvatar())
                 .build();
 
+        // Các service đang cache user theo token sẽ load lại profile mới
+        outboxService.publish("user-revoked", objectMapper.writeValueAsString(Map.of("id", userUpdated.getId())));
+
         return AppBaseResponse.builder()
                 .data(userDetailResponse)
                 .build();
@@ -285,6 +296,7 @@ public class UserServiceImpl implements UserService {
         return new AppBaseResponse(userMap);
     }
 
+    @Transactional
     @Override
     public AppBaseResponse updateStatusUserByAdmin(String userId, UpdateStatusUserRequest updateStatusUserRequest) throws Exception {
         List<FieldErrorsResponse.FieldError> listFieldErrors = new ArrayList<>();
@@ -328,6 +340,10 @@ public class UserServiceImpl implements UserService {
 
         user.setActive(updateStatusUserRequest.getActive());
         userRepository.save(user);
+        // Khoá tài khoản thì thu hồi luôn các token đã phát hành, mở khoá chỉ cần xoá cache
+        outboxService.publish("user-revoked", objectMapper.writeValueAsString(user.isActive()
+                ? Map.of("id", user.getId())
+                : Map.of("id", user.getId(), "revokedAt", System.currentTimeMillis())));
 
         return new AppBaseResponse(Map.of("message", "Change status successfully"));
     }
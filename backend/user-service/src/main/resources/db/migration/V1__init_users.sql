@@ -0,0 +1,16 @@
+CREATE TABLE IF NOT EXISTS users (
+    id SERIAL PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    phone VARCHAR(255) NOT NULL,
+    address VARCHAR(255) NOT NULL,
+    avatar VARCHAR(500),
+    role VARCHAR(255) NOT NULL,
+    gender VARCHAR(255) NOT NULL,
+    active BOOLEAN NOT NULL
+);
+
+CREATE EXTENSION IF NOT EXISTS unaccent;